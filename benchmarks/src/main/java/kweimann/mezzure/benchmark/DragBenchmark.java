@@ -0,0 +1,63 @@
+package kweimann.mezzure.benchmark;
+
+import javafx.scene.input.MouseEvent;
+import kweimann.mezzure.controller.MezzureEventHandler;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+import static kweimann.mezzure.benchmark.Fixtures.*;
+
+/* drag updates while moving or resizing the middle interval back and forth */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DragBenchmark {
+
+    @Param({"10", "1000", "100000", "1000000"})
+    int intervals;
+
+    @Param({"move", "resize"})
+    String drag;
+
+    private MezzureEventHandler handler;
+    private MouseEvent press;
+    private MouseEvent release;
+    private MouseEvent[] drags;
+    private int next;
+
+    @Setup
+    public void setup() {
+        handler = handler(intervals);
+
+        // grab either the middle or the start of the middle interval
+        int x = drag.equals("move")
+                ? start(intervals / 2) + INTERVAL_LENGTH / 2
+                : start(intervals / 2);
+        press = mouseEvent(MouseEvent.MOUSE_PRESSED, x);
+        release = mouseEvent(MouseEvent.MOUSE_RELEASED, x);
+        // stay within the blank interval so that every update changes the interval
+        drags = new MouseEvent[] {
+                mouseEvent(MouseEvent.MOUSE_DRAGGED, x - 3),
+                mouseEvent(MouseEvent.MOUSE_DRAGGED, x + 3)
+        };
+    }
+
+    @Setup(Level.Iteration)
+    public void press() {
+        handler.handle(press);
+    }
+
+    @TearDown(Level.Iteration)
+    public void release() {
+        handler.handle(release);
+    }
+
+    @Benchmark
+    public void update() {
+        handler.handle(drags[next++ & 1]);
+    }
+}
@@ -0,0 +1,62 @@
+package kweimann.mezzure.benchmark;
+
+import kweimann.mezzure.model.Interval;
+import kweimann.mezzure.model.Point;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class Element1DBenchmark {
+
+    @Param({"true", "false"})
+    boolean overlapping;
+
+    private Interval interval;
+    private Interval other;
+    private Point point;
+
+    @Setup
+    public void setup() {
+        interval = new Interval(new Point(100), new Point(200));
+        other = overlapping
+                ? new Interval(new Point(150), new Point(250))
+                : new Interval(new Point(300), new Point(400));
+        point = new Point(overlapping ? 150 : 300);
+    }
+
+    @Benchmark
+    public boolean overlapsInterval() {
+        return interval.overlaps(other);
+    }
+
+    @Benchmark
+    public boolean overlapsPoint() {
+        return interval.overlaps(point);
+    }
+
+    @Benchmark
+    public long displacementInterval() {
+        return interval.displacement(other);
+    }
+
+    @Benchmark
+    public long displacementPoint() {
+        return point.displacement(interval);
+    }
+
+    @Benchmark
+    public long distanceInterval() {
+        return interval.distance(other);
+    }
+
+    @Benchmark
+    public long distancePoint() {
+        return point.distance(interval);
+    }
+}
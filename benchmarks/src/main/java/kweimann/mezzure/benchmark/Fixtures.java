@@ -0,0 +1,40 @@
+package kweimann.mezzure.benchmark;
+
+import javafx.event.EventType;
+import javafx.scene.input.MouseButton;
+import javafx.scene.input.MouseEvent;
+import kweimann.mezzure.controller.MezzureEventHandler;
+import kweimann.mezzure.model.Interval;
+import kweimann.mezzure.model.Point;
+
+import java.util.ArrayList;
+import java.util.List;
+
+final class Fixtures {
+    // intervals [i * INTERVAL_DISTANCE + INTERVAL_OFFSET, i * INTERVAL_DISTANCE + INTERVAL_OFFSET + INTERVAL_LENGTH]
+    static final int INTERVAL_DISTANCE = 40;
+    static final int INTERVAL_OFFSET = 15;
+    static final int INTERVAL_LENGTH = 10;
+
+    private Fixtures() {}
+
+    /* returns a handler holding n evenly distributed intervals */
+    static MezzureEventHandler handler(int n) {
+        MezzureEventHandler handler = new MezzureEventHandler(new NoOpDrawingContext(n * INTERVAL_DISTANCE));
+        List<Interval> intervals = new ArrayList<>(n);
+        for (int i = 0; i < n; i++)
+            intervals.add(new Interval(new Point(start(i)), new Point(start(i) + INTERVAL_LENGTH)));
+        handler.addIntervals(intervals);
+        return handler;
+    }
+
+    static int start(int i) {
+        return i * INTERVAL_DISTANCE + INTERVAL_OFFSET;
+    }
+
+    static MouseEvent mouseEvent(EventType<MouseEvent> type, int x) {
+        boolean pressed = type == MouseEvent.MOUSE_PRESSED || type == MouseEvent.MOUSE_DRAGGED;
+        return new MouseEvent(type, x, 0, x, 0, MouseButton.PRIMARY, 1,
+                false, false, false, false, pressed, false, false, false, false, false, null);
+    }
+}
@@ -0,0 +1,57 @@
+package kweimann.mezzure.benchmark;
+
+import javafx.scene.input.MouseEvent;
+import kweimann.mezzure.controller.MezzureEventHandler;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static kweimann.mezzure.benchmark.Fixtures.*;
+
+/* hovering (getSelection) and pressing the mouse (getDragEvent) */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MezzureEventHandlerBenchmark {
+    private static final int POSITIONS = 1024;
+
+    @Param({"10", "1000", "100000", "1000000"})
+    int intervals;
+
+    private MezzureEventHandler handler;
+    private MouseEvent[] hovers;
+    private MouseEvent press;
+    private MouseEvent release;
+    private int next;
+
+    @Setup
+    public void setup() {
+        handler = handler(intervals);
+
+        // hover over random positions, both on and between intervals
+        Random random = new Random(42);
+        hovers = new MouseEvent[POSITIONS];
+        for (int i = 0; i < POSITIONS; i++)
+            hovers[i] = mouseEvent(MouseEvent.MOUSE_MOVED, random.nextInt(intervals * INTERVAL_DISTANCE));
+
+        // press in the middle of the middle interval to start moving it
+        int x = start(intervals / 2) + INTERVAL_LENGTH / 2;
+        press = mouseEvent(MouseEvent.MOUSE_PRESSED, x);
+        release = mouseEvent(MouseEvent.MOUSE_RELEASED, x);
+    }
+
+    @Benchmark
+    public void hover() {
+        handler.handle(hovers[next++ & (POSITIONS - 1)]);
+    }
+
+    @Benchmark
+    public void pressAndRelease() {
+        handler.handle(press);
+        handler.handle(release);
+    }
+}
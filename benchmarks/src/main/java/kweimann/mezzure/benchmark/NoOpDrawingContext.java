@@ -0,0 +1,73 @@
+package kweimann.mezzure.benchmark;
+
+import javafx.scene.Cursor;
+import kweimann.mezzure.model.Element1D;
+import kweimann.mezzure.model.Point;
+import kweimann.mezzure.view.DrawingContext;
+
+/* drawing context of a single section of `length` units at one unit per pixel which draws nothing */
+final class NoOpDrawingContext implements DrawingContext {
+
+    private final Point start;
+    private final Point end;
+
+    NoOpDrawingContext(int length) {
+        this.start = new Point(0);
+        this.end = new Point(length);
+    }
+
+    @Override
+    public void addText(Element1D element) {}
+
+    @Override
+    public void clearText(Element1D element) {}
+
+    @Override
+    public void draw(Element1D element) {}
+
+    @Override
+    public void clear(Element1D element) {}
+
+    @Override
+    public void addText(long start, long end) {}
+
+    @Override
+    public void clearText(long start, long end) {}
+
+    @Override
+    public void drawInterval(long start, long end) {}
+
+    @Override
+    public void clearInterval(long start, long end) {}
+
+    @Override
+    public void drawPoint(long x) {}
+
+    @Override
+    public void clearPoint(long x) {}
+
+    @Override
+    public void setCursor(Cursor cursor) {}
+
+    @Override
+    public long getX(int canvasX, int canvasY, boolean fitToSection) {
+        if (fitToSection) return Math.min(Math.max(start.center(), canvasX), end.center());
+        return canvasX >= start.center() && canvasX <= end.center() ? canvasX : -1;
+    }
+
+    // one domain unit per pixel
+    @Override
+    public long getLength(int pixels) {
+        return pixels;
+    }
+
+    @Override
+    public Point getStart() {
+        return start;
+    }
+
+    @Override
+    public Point getEnd() {
+        return end;
+    }
+}
@@ -0,0 +1,43 @@
+package kweimann.mezzure.benchmark;
+
+import kweimann.mezzure.util.Collections;
+import kweimann.mezzure.util.Window;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SlideWindowBenchmark {
+
+    @Param({"2", "3", "8", "32"})
+    int size;
+
+    @Param({"0", "1"})
+    int padding;
+
+    @Param({"10000"})
+    int elements;
+
+    private List<Integer> collection;
+
+    @Setup
+    public void setup() {
+        collection = new ArrayList<>(elements);
+        for (int i = 0; i < elements; i++)
+            collection.add(i);
+    }
+
+    @Benchmark
+    public void slideWindow(Blackhole blackhole) {
+        for (Window<Integer> window : Collections.slideWindow(collection, size, padding))
+            blackhole.consume(window.get(window.size() - 1));
+    }
+}
@@ -1,126 +1,450 @@
 package kweimann;
 
 import javafx.application.Application;
+import javafx.application.Platform;
+import javafx.geometry.Point2D;
 import javafx.scene.Scene;
-import javafx.scene.canvas.Canvas;
-import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.Group;
+import javafx.scene.Node;
 import javafx.scene.control.ScrollPane;
+import javafx.scene.image.ImageView;
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.WritableImage;
+import javafx.scene.input.KeyCode;
+import javafx.scene.input.KeyEvent;
 import javafx.scene.input.MouseEvent;
+import javafx.scene.input.ScrollEvent;
+import javafx.scene.layout.Pane;
 import javafx.scene.layout.StackPane;
 import javafx.scene.text.Text;
 import javafx.stage.Stage;
+import javafx.stage.WindowEvent;
 import kweimann.mezzure.view.Mezzure;
 import kweimann.mezzure.view.MezzureConfiguration;
+import kweimann.mezzure.view.MezzureLayout;
+import kweimann.mezzure.view.ViewTransform;
 
 import javafx.scene.paint.Color;
+import kweimann.mezzure.controller.AsyncChangeListener;
+import kweimann.mezzure.controller.ChangeListener;
+import kweimann.mezzure.controller.History;
 import kweimann.mezzure.controller.MezzureEventHandler;
+import kweimann.mezzure.io.IntervalFile;
 import kweimann.mezzure.model.Interval;
-import kweimann.mezzure.util.Collections;
-import kweimann.mezzure.util.Window;
-
-import java.util.Iterator;
-import java.util.NoSuchElementException;
-import java.util.function.Function;
+import kweimann.mezzure.monitoring.MezzureMetrics;
+import kweimann.mezzure.session.SessionRecorder;
+import kweimann.mezzure.util.M4Decimator;
+import kweimann.mezzure.util.FeatureIndex;
+import kweimann.mezzure.util.MappedSeries;
+import kweimann.mezzure.util.Raster;
+import kweimann.mezzure.util.RegionDetector;
+import kweimann.mezzure.util.Samples;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.function.BiConsumer;
+import java.util.function.DoubleUnaryOperator;
+import java.util.function.LongToDoubleFunction;
 
 public class Main extends Application {
     private static final int sectionCount = 5;
 
-    private static final PlotData data = new PlotData(
-            x -> Math.cos(x) + Math.sin(Math.sqrt(x)),
-            0,
-            Math.PI * 32 * sectionCount,
-            10000);
+    private static final DoubleUnaryOperator function = x -> Math.cos(x) + Math.sin(Math.sqrt(x));
+    private static final double xLow = 0;
+    private static final double xHigh = Math.PI * 32 * sectionCount;
+    private static final int nTicks = 10000;
+    // samples of the function (one per domain unit) beyond which --detect and --snap are rejected
+    private static final long maxAnalyzedSamples = Integer.MAX_VALUE;
+
+    private static final Color axisColor = Color.LIGHTGRAY;
+    private static final Color tickColor = Color.GRAY;
+    private static final Color plotColor = Color.ORANGE.deriveColor(0, 1, 1, 0.7);
+
+    // factor by which a scroll step zooms and the number of pixels per domain unit at which zooming in stops
+    private static final double zoomStep = 1.25;
+    private static final double maxZoom = 16;
 
     public static void main(String[] args) {
-        launch();
+        launch(args);
     }
 
     @Override
     public void start(Stage stage) throws Exception {
-        MezzureConfiguration configuration = MezzureConfiguration
+        // plot a binary file of big-endian doubles instead of the function if requested (--series=<file>)
+        String series = getParameters().getNamed().get("series");
+        Path seriesPath = series != null ? Paths.get(series) : null;
+
+        MezzureConfiguration.Builder builder = MezzureConfiguration
                 .builder(1000, 50 + sectionCount * 175)
                 .sectionStart(100)
                 .sectionWidth(800)
                 .sectionHeight(125)
                 .distanceBetweenSections(50)
-                .offsetY(50)
-                .build();
+                .offsetY(50);
+
+        // intervals of a series are measured in samples; the whole series is shown at first
+        if (seriesPath != null) {
+            long size = Files.size(seriesPath) / Double.BYTES;
+            builder.domain(0, size).transform(new ViewTransform(0, (double) size / (800 * sectionCount)));
+        }
+
+        MezzureConfiguration configuration = builder.build();
+        int length = new MezzureLayout(configuration).length();
 
         StackPane stackPane = new StackPane();
         ScrollPane pane = new ScrollPane(stackPane);
 
-        // prepare background canvas (may be any kind of node e.g. image view)
-        Canvas background = getBackground(configuration);
+        // use normalizer to translate domain coordinates into plot coordinates
+        Normalizer normalizer = seriesPath != null
+                ? new Normalizer(0, configuration.domainEnd(), 0, configuration.domainEnd())
+                : new Normalizer(xLow, xHigh, 0, configuration.domainEnd());
 
-        // Mezzure requires access to its pane parent in order to add/remove UI elements
-        Mezzure mezzure = new Mezzure(stackPane, configuration);
+        // prepare background (may be any kind of node e.g. image view); its sections show up as they are rendered
+        Background background = seriesPath != null
+                ? new SeriesBackground(configuration, seriesPath)
+                : new FunctionBackground(configuration, normalizer);
+        background.render(configuration.transform());
 
-        stackPane.getChildren().addAll(background, mezzure);
+        Mezzure mezzure = new Mezzure(configuration);
 
-        // use normalizer to translate canvas length into plot length
-        Normalizer normalizer = new Normalizer(
-                data.xLow,
-                data.xHigh,
-                0,
-                configuration.sectionWidth() * sectionCount);
+        stackPane.getChildren().addAll(background.pane, mezzure);
 
         MezzureEventHandler handler = new MezzureEventHandler(mezzure.getDrawingContext());
 
         // listen for interval changes
-        handler.setListener(((oldInterval, newInterval) -> System.out.println(oldInterval + " -> " + newInterval)));
+        ChangeListener listener = (oldInterval, newInterval) -> System.out.println(oldInterval + " -> " + newInterval);
+        // deliver them off the FX thread if requested (--async=true)
+        if (Boolean.parseBoolean(getParameters().getNamed().get("async"))) {
+            listener = new AsyncChangeListener(listener, Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "change-listener");
+                thread.setDaemon(true);
+                return thread;
+            }));
+        }
+        handler.setListener(listener);
+
+        // load intervals on start and save them on exit if requested (--intervals=<file>); they are loaded before the
+        // recorder is created so that a recorded session starts with them
+        String intervals = getParameters().getNamed().get("intervals");
+        if (intervals != null) {
+            Path intervalsPath = Paths.get(intervals);
+            if (Files.exists(intervalsPath))
+                handler.addIntervals(IntervalFile.read(intervalsPath, configuration.domainStart(), configuration.domainEnd()));
+            stage.addEventHandler(WindowEvent.WINDOW_HIDDEN, e -> {
+                try {
+                    IntervalFile.write(intervalsPath, handler.getIntervals());
+                } catch (IOException ex) {
+                    ex.printStackTrace();
+                }
+            });
+        }
+
+        // record the session if requested (--record=<file>) so that it may be replayed with SessionReplayer
+        String record = getParameters().getNamed().get("record");
+        SessionRecorder recorder = record != null
+                ? SessionRecorder.create(Paths.get(record), configuration, handler.getIntervals())
+                : null;
+        if (recorder != null) {
+            mezzure.addEventHandler(MouseEvent.ANY, recorder);
+            stage.setOnHidden(e -> closeQuietly(recorder));
+        }
 
         // set up the event handler
         mezzure.addEventHandler(MouseEvent.ANY, handler);
 
+        // publish runtime metrics as kweimann.mezzure:type=Mezzure,name=demo if requested (--metrics=true)
+        if (Boolean.parseBoolean(getParameters().getNamed().get("metrics"))) {
+            MezzureMetrics metrics = new MezzureMetrics();
+            handler.setMetrics(metrics);
+            mezzure.getDrawingContext().setMetrics(metrics);
+            metrics.register("demo");
+        }
+
+        // detect regions of the plotted data if requested (--detect=above:<y>|below:<y>|plateaus:<tolerance>|lobes)
+        String detect = getParameters().getNamed().get("detect");
+        if (detect != null) {
+            RegionDetector detector = RegionDetector.builder(parseRule(detect)).build();
+            background.analyze(detector::detect)
+                    .thenAccept(regions -> Platform.runLater(() -> {
+                        int added = handler.addIntervals(regions);
+                        if (recorder != null) recorder.recordAdd(regions);
+                        System.out.println("detected " + regions.size() + " regions, added " + added);
+                    }))
+                    .exceptionally(e -> {
+                        e.printStackTrace();
+                        return null;
+                    });
+        }
+
+        // snap dragged edges onto extrema and zero crossings of the plotted data if requested (--snap=true)
+        if (Boolean.parseBoolean(getParameters().getNamed().get("snap"))) {
+            background.analyze(FeatureIndex::build)
+                    .thenAccept(features -> Platform.runLater(() -> {
+                        handler.setSnapping(features);
+                        if (recorder != null) recorder.recordSnapping(features);
+                    }))
+                    .exceptionally(e -> {
+                        e.printStackTrace();
+                        return null;
+                    });
+        }
+
+        // coalesce input and drawing per pulse if requested (--coalesce=true)
+        if (Boolean.parseBoolean(getParameters().getNamed().get("coalesce"))) {
+            handler.setCoalescing(true);
+            mezzure.getDrawingContext().setDeferred(true);
+        }
+
         // set up the interval labeling function
         mezzure.setDescriptor(e -> e instanceof Interval
-                ? String.format("%.2f", normalizer.normalize(e.length()))
+                ? String.format("%.2f", normalizer.normalize(e.length()) - normalizer.normalize(0))
                 : null
         );
 
-        stage.setTitle("y = cos(x) + sin(sqrt(x))");
-        stage.setScene(new Scene(pane, configuration.width() + 15, 800));
+        // zoom around the cursor with ctrl + scroll and scroll horizontally with shift + scroll
+        stackPane.addEventFilter(ScrollEvent.SCROLL, event -> {
+            ViewTransform transform = mezzure.getTransform();
+            if (event.isControlDown()) {
+                Point2D position = mezzure.sceneToLocal(event.getSceneX(), event.getSceneY());
+                long anchor = mezzure.getDrawingContext().getX((int) position.getX(), (int) position.getY(), true);
+                transform = transform.zoom(event.getDeltaY() > 0 ? 1 / zoomStep : zoomStep, anchor);
+            } else if (event.isShiftDown()) {
+                double delta = event.getDeltaX() != 0 ? event.getDeltaX() : event.getDeltaY();
+                transform = transform.scroll(-Math.round(delta * transform.unitsPerPixel()));
+            } else return;
+
+            event.consume();
+            transform = clamp(transform, configuration, length);
+            if (!transform.equals(mezzure.getTransform())) {
+                mezzure.setTransform(transform);
+                background.render(transform);
+                if (recorder != null) recorder.recordTransform(transform);
+            }
+        });
+
+        // paint only what the scroll pane shows (its viewport lies at negative offsets while scrolled down)
+        pane.viewportBoundsProperty().addListener((observable, oldBounds, bounds) ->
+                mezzure.setViewport(
+                        -bounds.getMinX(), -bounds.getMinX() + bounds.getWidth(),
+                        -bounds.getMinY(), -bounds.getMinY() + bounds.getHeight()));
+
+        Scene scene = new Scene(pane, configuration.width() + 15, 800);
+
+        // undo with ctrl + Z and redo with ctrl + Y or ctrl + shift + Z
+        scene.addEventHandler(KeyEvent.KEY_PRESSED, event -> {
+            if (!event.isShortcutDown()) return;
+            History.Change change = null;
+            if (event.getCode() == KeyCode.Z && !event.isShiftDown()) {
+                change = handler.undo();
+                if (change != null && recorder != null) recorder.recordUndo();
+            } else if (event.getCode() == KeyCode.Y || event.getCode() == KeyCode.Z) {
+                change = handler.redo();
+                if (change != null && recorder != null) recorder.recordRedo();
+            }
+            // only the sizes since printing a bulk change would write every interval it touched
+            if (change != null)
+                System.out.printf("undo/redo: %d removed, %d added%n", change.removed().size(), change.added().size());
+        });
+
+        stage.setTitle(seriesPath != null ? seriesPath.getFileName().toString() : "y = cos(x) + sin(sqrt(x))");
+        stage.setScene(scene);
         stage.show();
     }
 
-    private Canvas getBackground(MezzureConfiguration configuration) {
-        Canvas canvas = new Canvas(configuration.width(), configuration.height());
+    private static void closeQuietly(Closeable closeable) {
+        try {
+            closeable.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    // keeps the view within the domain and zooms in no further than maxZoom pixels per unit
+    private static ViewTransform clamp(ViewTransform transform, MezzureConfiguration configuration, int length) {
+        double unitsPerPixel = Math.min(
+                Math.max(transform.unitsPerPixel(), 1 / maxZoom),
+                (double) (configuration.domainEnd() - configuration.domainStart()) / length);
+        long lastStart = configuration.domainEnd() - (long) Math.ceil(length * unitsPerPixel);
+        long start = Math.min(Math.max(transform.start(), configuration.domainStart()), Math.max(configuration.domainStart(), lastStart));
+        return new ViewTransform(start, unitsPerPixel);
+    }
+
+    // sections of the background are rasterized in parallel off the FX application thread and replace the previous
+    // ones on the FX application thread as they finish; only copying their pixels into an image and placing their
+    // tick labels is left to it. renders superseded by a newer one are dropped
+    private abstract class Background {
+        final MezzureConfiguration configuration;
+        final Pane pane = new Pane();
+        final Node[] sections = new Node[sectionCount];
+        int generation;
+
+        Background(MezzureConfiguration configuration) {
+            this.configuration = configuration;
+            pane.setMinSize(configuration.width(), configuration.height());
+            pane.setPrefSize(configuration.width(), configuration.height());
+            pane.setMaxSize(configuration.width(), configuration.height());
+        }
+
+        /* renders the sections showing the domain through the transform */
+        abstract void render(ViewTransform transform);
+
+        /* applies the analysis (e.g. RegionDetector::detect) to the samples of the whole domain off the FX application
+         * thread; the domain starts at 0 so that sample indices are domain coordinates */
+        abstract <T> CompletableFuture<T> analyze(Analysis<T> analysis);
 
-        GraphicsContext gc = canvas.getGraphicsContext2D();
+        // domain coordinates shown at the left and right border of the section
+        long sectionStart(ViewTransform transform, int section) {
+            return transform.toDomain((long) section * configuration.sectionWidth());
+        }
 
-        double xTick = (Main.data.xHigh - Main.data.xLow) / sectionCount;
+        long sectionEnd(ViewTransform transform, int section) {
+            return transform.toDomain((long) (section + 1) * configuration.sectionWidth());
+        }
 
-        for (int i = 0; i < sectionCount; i++) {
-            PlotData data = new PlotData(
-                    Main.data.function,
-                    Main.data.xLow + i * xTick,
-                    Main.data.xLow + (i + 1) * xTick,
-                    Main.data.yLow,
-                    Main.data.yHigh,
-                    Main.data.nTicks / sectionCount);
+        void addSection(int section, CompletableFuture<Section> rendered) {
+            int generation = this.generation;
+            rendered.thenAccept(s -> Platform.runLater(() -> {
+                if (generation != this.generation) return;
+                if (sections[section] != null) pane.getChildren().remove(sections[section]);
+                sections[section] = s.toNode();
+                pane.getChildren().add(sections[section]);
+            })).exceptionally(e -> {
+                e.printStackTrace();
+                return null;
+            });
+        }
+    }
+
+    private class FunctionBackground extends Background {
+        // maps domain coordinates onto the function's X axis
+        private final Normalizer normalizer;
+
+        FunctionBackground(MezzureConfiguration configuration, Normalizer normalizer) {
+            super(configuration);
+            this.normalizer = normalizer;
+        }
+
+        @Override
+        void render(ViewTransform transform) {
+            generation++;
+
+            // the visible part of the function is sampled once and sliced into sections
+            double from = normalizer.normalize(sectionStart(transform, 0));
+            double to = normalizer.normalize(sectionEnd(transform, sectionCount - 1));
+            CompletableFuture<Samples> samples = CompletableFuture.supplyAsync(
+                    () -> Samples.evaluate(function, from, to, nTicks));
+
+            for (int i = 0; i < sectionCount; i++) {
+                int section = i;
+                addSection(section, samples.thenApplyAsync(s -> {
+                    PlotData data = new PlotData(
+                            normalizer.normalize(sectionStart(transform, section)),
+                            normalizer.normalize(sectionEnd(transform, section)),
+                            s.yLow(),
+                            s.yHigh());
+                    return getSection(configuration, data, section, (raster, box) -> drawFunction(raster, s, data, box));
+                }));
+            }
+        }
+
+        @Override
+        <T> CompletableFuture<T> analyze(Analysis<T> analysis) {
+            // one sample per domain unit evaluated as the analysis reads it so that no domain sized array is allocated
+            long size = configuration.domainEnd() + 1;
+            if (size > maxAnalyzedSamples) {
+                CompletableFuture<T> rejected = new CompletableFuture<>();
+                rejected.completeExceptionally(new IllegalArgumentException("function domain of " + size
+                        + " units too large to analyze (at most " + maxAnalyzedSamples + " samples)"));
+                return rejected;
+            }
+            return CompletableFuture.supplyAsync(
+                    () -> analysis.apply(size, tick -> function.applyAsDouble(normalizer.normalize(tick))));
+        }
+    }
 
-            Rectangle box = new Rectangle(
-                    configuration.sectionStart(),
-                    configuration.offsetY() + i * (configuration.sectionHeight() + configuration.distanceBetweenSections()),
-                    configuration.sectionWidth(),
-                    configuration.sectionHeight());
+    private class SeriesBackground extends Background {
+        private final CompletableFuture<MappedSeries> series;
+
+        SeriesBackground(MezzureConfiguration configuration, Path path) {
+            super(configuration);
+            // the series is mapped (building its min/max pyramid on first use) off the FX application thread
+            this.series = CompletableFuture.supplyAsync(() -> {
+                try {
+                    return MappedSeries.open(path);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        }
 
-            gc.setFill(Color.BLACK.deriveColor(0, 1, 1, 0.05));
-            gc.fillRect(box.x, box.y ,box.width, box.height);
+        @Override
+        void render(ViewTransform transform) {
+            generation++;
+
+            // sections are plotted against the range of the visible samples
+            CompletableFuture<double[]> range = series.thenApplyAsync(s -> {
+                double[] minMax = new double[2];
+                s.minMax(sampleIndex(s, sectionStart(transform, 0)), sampleIndex(s, sectionEnd(transform, sectionCount - 1)), minMax);
+                return minMax;
+            });
+
+            for (int i = 0; i < sectionCount; i++) {
+                int section = i;
+                addSection(section, series.thenCombineAsync(range, (s, minMax) -> {
+                    PlotData data = new PlotData(
+                            sampleIndex(s, sectionStart(transform, section)),
+                            sampleIndex(s, sectionEnd(transform, section)),
+                            minMax[0],
+                            minMax[1]);
+                    return getSection(configuration, data, section, (raster, box) -> drawSeries(raster, s, data, box));
+                }));
+            }
+        }
 
-            gc.setFill(Color.GRAY);
-            gc.setStroke(Color.LIGHTGRAY);
-            drawBoxXAxis(gc, data, box, 16);
-            drawBoxYAxis(gc, data, box, 3);
+        @Override
+        <T> CompletableFuture<T> analyze(Analysis<T> analysis) {
+            return series.thenApplyAsync(s -> analysis.apply(s.size(), s::get));
+        }
 
-            gc.setStroke(Color.ORANGE.deriveColor(0, 1, 1, 0.7));
-            drawFunction(gc, data, box);
+        private long sampleIndex(MappedSeries series, long x) {
+            return Math.min(Math.max(x, 0), series.size());
         }
+    }
+
+    private Section getSection(MezzureConfiguration configuration, PlotData data, int i,
+                               BiConsumer<Raster, Rectangle> plot) {
+        // the section reaches into the space around its box where the axes are labeled
+        int top = configuration.offsetY() - configuration.distanceBetweenSections()
+                + i * (configuration.sectionHeight() + configuration.distanceBetweenSections());
+        Rectangle box = new Rectangle(
+                configuration.sectionStart(),
+                configuration.distanceBetweenSections(),
+                configuration.sectionWidth(),
+                configuration.sectionHeight());
 
-        return canvas;
+        Section section = new Section(
+                top,
+                new Raster(configuration.width(), box.height + 2 * configuration.distanceBetweenSections()));
+
+        section.raster.fillRect(box.x, box.y, box.width, box.height, argb(Color.BLACK.deriveColor(0, 1, 1, 0.05)));
+
+        drawBoxXAxis(section, data, box, 16);
+        drawBoxYAxis(section, data, box, 3);
+
+        plot.accept(section.raster, box);
+
+        return section;
     }
 
-    private void drawFunction(GraphicsContext gc, PlotData data, Rectangle box) {
+    private void drawFunction(Raster raster, Samples samples, PlotData data, Rectangle box) {
         Normalizer xNorm = new Normalizer(
                 0,
                 box.width,
@@ -133,19 +457,59 @@ public class Main extends Application {
                 data.yLow,
                 data.yHigh);
 
-        for (Window<PlotData.Point> window : Collections.slideWindow(getPoints(data), 2)) {
-            PlotData.Point a = window.get(0);
-            PlotData.Point b = window.get(1);
+        // only the first, lowest, highest and last sample of each pixel column determine what the line looks like
+        int color = argb(plotColor);
+        M4Decimator decimator = new M4Decimator((x1, y1, x2, y2) -> raster.line(x1, y1, x2, y2, color));
 
-            gc.strokeLine(
-                    box.x + xNorm.normalize(a.x),
-                    box.y + box.height - yNorm.normalize(a.y),
-                    box.x + xNorm.normalize(b.x),
-                    box.y + box.height - yNorm.normalize(b.y));
+        for (int tick = samples.ceilTick(data.xLow); tick <= samples.floorTick(data.xHigh); tick++) {
+            decimator.add(
+                    box.x + xNorm.normalize(samples.x(tick)),
+                    box.y + box.height - yNorm.normalize(samples.y(tick)));
         }
+
+        decimator.finish();
     }
 
-    private void drawBoxXAxis(GraphicsContext gc, PlotData data, Rectangle box, int ticks) {
+    private void drawSeries(Raster raster, MappedSeries series, PlotData data, Rectangle box) {
+        Normalizer yNorm = new Normalizer(
+                0,
+                box.height,
+                data.yLow,
+                data.yHigh);
+
+        // the range of the samples of each pixel column is read from the series' min/max pyramid
+        double[] mins = new double[box.width];
+        double[] maxs = new double[box.width];
+        series.minMax((long) data.xLow, (long) data.xHigh, box.width, mins, maxs);
+
+        int color = argb(plotColor);
+        // the last column holding samples; zoomed in past one sample per column most columns hold none
+        int last = -1;
+        for (int column = 0; column < box.width; column++) {
+            if (Double.isNaN(mins[column])) continue;
+            // a column following a gap is joined to the last column with samples by a segment between their middles
+            if (last >= 0 && last < column - 1)
+                raster.line(
+                        box.x + last + 0.5,
+                        box.y + box.height - yNorm.normalize((mins[last] + maxs[last]) / 2),
+                        box.x + column + 0.5,
+                        box.y + box.height - yNorm.normalize((mins[column] + maxs[column]) / 2),
+                        color);
+            // adjacent columns are joined so that steps between them stay connected
+            boolean adjacent = last >= 0 && last == column - 1;
+            double low = adjacent ? Math.min(mins[column], maxs[last]) : mins[column];
+            double high = adjacent ? Math.max(maxs[column], mins[last]) : maxs[column];
+            last = column;
+            raster.line(
+                    box.x + column + 0.5,
+                    box.y + box.height - yNorm.normalize(low),
+                    box.x + column + 0.5,
+                    box.y + box.height - yNorm.normalize(high),
+                    color);
+        }
+    }
+
+    private void drawBoxXAxis(Section section, PlotData data, Rectangle box, int ticks) {
         Normalizer xNorm = new Normalizer(
                 0,
                 box.width,
@@ -154,28 +518,30 @@ public class Main extends Application {
 
         double xTick = (data.xHigh - data.xLow) / (ticks - 1);
 
-        gc.strokeLine(box.x, box.y + box.height, box.x + box.width, box.y + box.height);
+        section.raster.fillRect(box.x, box.y + box.height, box.width + 1, 1, argb(axisColor));
 
         for (int tick = 0; tick < ticks; tick++) {
             double x = data.xLow + tick * xTick;
             double boxX = xNorm.normalize(x);
-            Text text = new Text(String.format("%.2f", x));
 
-            gc.fillRect(
+            section.raster.fillRect(
                     box.x + (int) boxX,
                     box.y + box.height - 5,
                     1,
-                    10
-            );
-
-            gc.fillText(
-                    text.getText(),
-                    box.x + boxX - text.getBoundsInLocal().getWidth() / 2,
-                    box.y + box.height + text.getBoundsInLocal().getHeight() + 5);
+                    10,
+                    argb(tickColor));
+
+            // centered below the tick
+            section.labels.add(new Label(
+                    String.format("%.2f", x),
+                    box.x + boxX,
+                    box.y + box.height + 5,
+                    0.5,
+                    1));
         }
     }
 
-    private void drawBoxYAxis(GraphicsContext gc, PlotData data, Rectangle box, int ticks) {
+    private void drawBoxYAxis(Section section, PlotData data, Rectangle box, int ticks) {
         Normalizer yNorm = new Normalizer(
                 0,
                 box.height,
@@ -184,44 +550,52 @@ public class Main extends Application {
 
         double yTick = (data.yHigh - data.yLow) / (ticks - 1);
 
-        gc.strokeLine(box.x, box.y, box.x, box.y + box.height);
+        section.raster.fillRect(box.x, box.y, 1, box.height + 1, argb(axisColor));
 
         for (int tick = 0; tick < ticks; tick++) {
             double y = data.yLow + tick * yTick;
             double boxY = yNorm.normalize(y);
-            Text text = new Text(String.format("%.2f", y));
 
-            gc.fillRect(
+            section.raster.fillRect(
                     box.x - 5,
                     box.y + box.height - (int) boxY,
                     10,
-                    1
-            );
+                    1,
+                    argb(tickColor));
 
-            gc.fillText(
-                    text.getText(),
-                    box.x - text.getBoundsInLocal().getWidth() - 10,
-                    box.y + box.height - boxY + text.getBoundsInLocal().getHeight() / 2 - 1);
+            // left of the tick and vertically centered on it
+            section.labels.add(new Label(
+                    String.format("%.2f", y),
+                    box.x - 10,
+                    box.y + box.height - boxY - 1,
+                    1,
+                    0.5));
         }
     }
 
-    private Iterable<PlotData.Point> getPoints(PlotData data) {
-        return () -> new Iterator<PlotData.Point>() {
-
-            int tick = 0;
+    // non-premultiplied ARGB of the color for drawing onto a raster
+    private static int argb(Color color) {
+        return (int) Math.round(color.getOpacity() * 255) << 24
+                | (int) Math.round(color.getRed() * 255) << 16
+                | (int) Math.round(color.getGreen() * 255) << 8
+                | (int) Math.round(color.getBlue() * 255);
+    }
 
-            @Override
-            public boolean hasNext() {
-                return tick < data.nTicks;
-            }
+    // computes something from the samples 0 to size - 1 of the plotted data
+    private interface Analysis<T> {
+        T apply(long size, LongToDoubleFunction samples);
+    }
 
-            @Override
-            public PlotData.Point next() {
-                if (tick >= data.nTicks) throw new NoSuchElementException();
-                double x = data.xLow + tick++ * data.xTick;
-                return new PlotData.Point(x, data.function.apply(x));
-            }
-        };
+    // parses above:<y>, below:<y>, plateaus:<tolerance> or lobes
+    private static RegionDetector.Rule parseRule(String rule) {
+        String[] parts = rule.split(":", 2);
+        switch (parts[0]) {
+            case "above": return RegionDetector.Rule.above(Double.parseDouble(parts[1]));
+            case "below": return RegionDetector.Rule.below(Double.parseDouble(parts[1]));
+            case "plateaus": return RegionDetector.Rule.plateaus(Double.parseDouble(parts[1]));
+            case "lobes": return RegionDetector.Rule.lobes();
+            default: throw new IllegalArgumentException("unknown rule " + parts[0]);
+        }
     }
 
     private static class Normalizer {
@@ -239,60 +613,68 @@ public class Main extends Application {
         }
     }
 
+    // slice from xLow to xHigh of the plotted data against the range of all of it
     private static class PlotData {
-        static class Point {
-            final double x;
-            final double y;
-
-            Point(double x, double y) {
-                this.x = x;
-                this.y = y;
-            }
-        }
-
-        final Function<Double, Double> function;
         final double xLow;
         final double xHigh;
         final double yLow;
         final double yHigh;
-        final int nTicks;
-        final double xTick;
 
-        PlotData(Function<Double, Double> function, double xLow, double xHigh, double yLow, double yHigh, int nTicks) {
+        PlotData(double xLow, double xHigh, double yLow, double yHigh) {
             if (xLow > xHigh) throw new IllegalArgumentException();
-            if (nTicks < 2) throw new IllegalArgumentException();
 
-            this.function = function;
             this.xLow = xLow;
             this.xHigh = xHigh;
             this.yLow = yLow;
             this.yHigh = yHigh;
-            this.nTicks = nTicks;
-            this.xTick = (xHigh - xLow) / (nTicks - 1);
         }
+    }
 
-        PlotData(Function<Double, Double> function, double xLow, double xHigh, int nTicks) {
-            if (xLow > xHigh) throw new IllegalArgumentException();
-            if (nTicks < 2) throw new IllegalArgumentException();
+    // rasterized section of the background `top` pixels below the top of the background and its tick labels which
+    // are left to the FX application thread since text may only be measured and rendered there
+    private static class Section {
+        final int top;
+        final Raster raster;
+        final List<Label> labels = new ArrayList<>();
 
-            double yLow = function.apply(xLow);
-            double yHigh = function.apply(xLow);
+        Section(int top, Raster raster) {
+            this.top = top;
+            this.raster = raster;
+        }
 
-            double xTick = (xHigh - xLow) / (nTicks - 1);
-            for (int tick = 0; tick < nTicks; tick++) {
-                double x = xLow + tick * xTick;
-                double y = function.apply(x);
-                yLow = Math.min(yLow, y);
-                yHigh = Math.max(yHigh, y);
+        /* must be called on the FX application thread */
+        Node toNode() {
+            WritableImage image = new WritableImage(raster.width(), raster.height());
+            image.getPixelWriter().setPixels(
+                    0, 0, raster.width(), raster.height(), PixelFormat.getIntArgbPreInstance(), raster.pixels(), 0, raster.width());
+
+            Group group = new Group(new ImageView(image));
+            for (Label label : labels) {
+                Text text = new Text(label.text);
+                text.setFill(tickColor);
+                text.setX(label.x - text.getBoundsInLocal().getWidth() * label.alignX);
+                text.setY(label.y + text.getBoundsInLocal().getHeight() * label.alignY);
+                group.getChildren().add(text);
             }
+            group.relocate(0, top);
+            return group;
+        }
+    }
 
-            this.function = function;
-            this.xLow = xLow;
-            this.xHigh = xHigh;
-            this.yLow = yLow;
-            this.yHigh = yHigh;
-            this.nTicks = nTicks;
-            this.xTick = xTick;
+    // text whose baseline starts at (x, y) moved by its width times alignX to the left and its height times alignY down
+    private static class Label {
+        final String text;
+        final double x;
+        final double y;
+        final double alignX;
+        final double alignY;
+
+        Label(String text, double x, double y, double alignX, double alignY) {
+            this.text = text;
+            this.x = x;
+            this.y = y;
+            this.alignX = alignX;
+            this.alignY = alignY;
         }
     }
 
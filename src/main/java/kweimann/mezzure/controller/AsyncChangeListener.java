@@ -0,0 +1,150 @@
+package kweimann.mezzure.controller;
+
+import kweimann.mezzure.model.Interval;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/* delivers the events of a MezzureEventHandler to another listener on an executor instead of the FX thread.
+ * events are delivered one after another in the order they happened, so any executor may be used (e.g. a thread pool
+ * or a virtual thread per task executor). drag events that have not been delivered yet are conflated: dragging an
+ * interval from a over b to c is delivered as a single drag from a to c. changes are never conflated and a drag is
+ * never merged across a change */
+public final class AsyncChangeListener implements ChangeListener {
+
+    private final ChangeListener listener;
+    private final Executor executor;
+
+    // events not delivered yet; guarded by this
+    private final ArrayDeque<Event> queue = new ArrayDeque<>();
+    // pending drag events by their latest result so that the next drag of the same interval updates them in place
+    private final Map<Interval, Event> pendingDrags = new HashMap<>();
+    // true while a delivery task is submitted or running
+    private boolean delivering;
+
+    private long delivered;
+    private long conflated;
+    private long dropped;
+    private int maxQueueDepth;
+
+    public AsyncChangeListener(ChangeListener listener, Executor executor) {
+        this.listener = Objects.requireNonNull(listener);
+        this.executor = Objects.requireNonNull(executor);
+    }
+
+    @Override
+    public void onChange(Interval oldInterval, Interval newInterval) {
+        synchronized (this) {
+            // later drags must not overtake this change by being merged into an earlier drag event
+            pendingDrags.clear();
+            enqueue(new Event(false, oldInterval, newInterval));
+        }
+    }
+
+    @Override
+    public void onDrag(Interval oldInterval, Interval newInterval) {
+        synchronized (this) {
+            Event event = oldInterval != null ? pendingDrags.remove(oldInterval) : null;
+            if (event != null) {
+                // deliver the latest result instead of every intermediate step
+                event.newInterval = newInterval;
+                conflated++;
+            } else {
+                event = new Event(true, oldInterval, newInterval);
+                enqueue(event);
+            }
+            if (newInterval != null) pendingDrags.put(newInterval, event);
+        }
+    }
+
+    /* number of events waiting for delivery */
+    public synchronized int queueDepth() {
+        return queue.size();
+    }
+
+    /* highest number of events that have been waiting for delivery at once */
+    public synchronized int maxQueueDepth() {
+        return maxQueueDepth;
+    }
+
+    /* number of events delivered to the listener */
+    public synchronized long delivered() {
+        return delivered;
+    }
+
+    /* number of drag events merged into a pending drag event */
+    public synchronized long conflated() {
+        return conflated;
+    }
+
+    /* number of events lost because the executor rejected their delivery (e.g. it has been shut down) */
+    public synchronized long dropped() {
+        return dropped;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("queued: %d (max %d), delivered: %d, conflated: %d, dropped: %d",
+                queue.size(), maxQueueDepth, delivered, conflated, dropped);
+    }
+
+    // must hold the lock
+    private void enqueue(Event event) {
+        queue.add(event);
+        maxQueueDepth = Math.max(maxQueueDepth, queue.size());
+        if (!delivering) {
+            delivering = true;
+            try {
+                executor.execute(this::deliver);
+            } catch (RejectedExecutionException e) {
+                delivering = false;
+                dropped += queue.size();
+                queue.clear();
+                pendingDrags.clear();
+            }
+        }
+    }
+
+    // delivers events until the queue is empty; only one delivery task runs at a time
+    private void deliver() {
+        while (true) {
+            Event event;
+            synchronized (this) {
+                event = queue.poll();
+                if (event == null) {
+                    delivering = false;
+                    return;
+                }
+                // the event is about to be delivered so it must not change anymore
+                if (event.drag && event.newInterval != null && pendingDrags.get(event.newInterval) == event)
+                    pendingDrags.remove(event.newInterval);
+                delivered++;
+            }
+
+            try {
+                if (event.drag) listener.onDrag(event.oldInterval, event.newInterval);
+                else listener.onChange(event.oldInterval, event.newInterval);
+            } catch (RuntimeException e) {
+                // a failing listener must not stop the delivery of later events
+                Thread thread = Thread.currentThread();
+                thread.getUncaughtExceptionHandler().uncaughtException(thread, e);
+            }
+        }
+    }
+
+    private static final class Event {
+        final boolean drag;
+        final Interval oldInterval;
+        Interval newInterval;
+
+        Event(boolean drag, Interval oldInterval, Interval newInterval) {
+            this.drag = drag;
+            this.oldInterval = oldInterval;
+            this.newInterval = newInterval;
+        }
+    }
+}
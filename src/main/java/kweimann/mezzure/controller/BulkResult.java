@@ -0,0 +1,32 @@
+package kweimann.mezzure.controller;
+
+import kweimann.mezzure.model.Interval;
+
+import java.util.Collections;
+import java.util.List;
+
+public final class BulkResult {
+
+    private final List<Interval> accepted;
+    private final List<Interval> rejected;
+
+    BulkResult(List<Interval> accepted, List<Interval> rejected) {
+        this.accepted = Collections.unmodifiableList(accepted);
+        this.rejected = Collections.unmodifiableList(rejected);
+    }
+
+    /* intervals that have been added / removed */
+    public List<Interval> accepted() {
+        return accepted;
+    }
+
+    /* intervals that have been skipped because they overlap other intervals or are not visible */
+    public List<Interval> rejected() {
+        return rejected;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("accepted: %d, rejected: %d", accepted.size(), rejected.size());
+    }
+}
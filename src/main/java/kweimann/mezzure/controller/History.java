@@ -0,0 +1,131 @@
+package kweimann.mezzure.controller;
+
+import kweimann.mezzure.model.Interval;
+import kweimann.mezzure.model.IntervalStore;
+import kweimann.mezzure.model.PersistentIntervalSet;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/* committed versions of the intervals; a version shares all unchanged nodes with its predecessor and the change
+ * leading to it is kept so that undoing and redoing only has to repaint what differs between two versions. changes
+ * are kept packed so that a bulk load costs two primitive arrays instead of an object per interval */
+public final class History {
+
+    private final int limit;
+    // changes.get(i) leads from versions.get(i) to versions.get(i + 1)
+    private final List<PersistentIntervalSet> versions = new ArrayList<>();
+    private final List<Change> changes = new ArrayList<>();
+    private int current;
+    // versions.get(current) published for reading from any thread
+    private volatile PersistentIntervalSet latest = PersistentIntervalSet.empty();
+
+    /* keeps at most `limit` changes */
+    History(int limit) {
+        if (limit < 1) throw new IllegalArgumentException("bad limit");
+        this.limit = limit;
+        versions.add(PersistentIntervalSet.empty());
+    }
+
+    /* may be called from any thread */
+    PersistentIntervalSet current() {
+        return latest;
+    }
+
+    /* commits a change on top of the current version and discards all changes that could have been redone; the
+     * stores are kept by the history and must not be modified afterwards */
+    void commit(IntervalStore removed, IntervalStore added) {
+        if (removed.size() == 0 && added.size() == 0) return;
+
+        versions.subList(current + 1, versions.size()).clear();
+        changes.subList(current, changes.size()).clear();
+
+        versions.add(versions.get(current).removeAll(removed).addAll(added));
+        changes.add(new Change(removed, added));
+        current++;
+
+        if (changes.size() > limit) {
+            versions.remove(0);
+            changes.remove(0);
+            current--;
+        }
+        latest = versions.get(current);
+    }
+
+    boolean canUndo() {
+        return current > 0;
+    }
+
+    boolean canRedo() {
+        return current < changes.size();
+    }
+
+    /* moves to the previous version and returns the change that has to be reverted */
+    Change undo() {
+        if (!canUndo()) throw new NoSuchElementException();
+        latest = versions.get(current - 1);
+        return changes.get(--current);
+    }
+
+    /* moves to the next version and returns the change that has to be applied again */
+    Change redo() {
+        if (!canRedo()) throw new NoSuchElementException();
+        latest = versions.get(current + 1);
+        return changes.get(current++);
+    }
+
+    public static final class Change {
+        private final IntervalStore removed;
+        private final IntervalStore added;
+
+        Change(IntervalStore removed, IntervalStore added) {
+            this.removed = removed;
+            this.added = added;
+        }
+
+        /* intervals the change removed sorted by their start; they are materialized when read */
+        public List<Interval> removed() {
+            return new Intervals(removed);
+        }
+
+        /* intervals the change added sorted by their start */
+        public List<Interval> added() {
+            return new Intervals(added);
+        }
+
+        IntervalStore removedStore() {
+            return removed;
+        }
+
+        IntervalStore addedStore() {
+            return added;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s -> %s", removed(), added());
+        }
+    }
+
+    // read-only list view of a store
+    private static final class Intervals extends AbstractList<Interval> {
+        private final IntervalStore store;
+
+        Intervals(IntervalStore store) {
+            this.store = store;
+        }
+
+        @Override
+        public Interval get(int index) {
+            if (index < 0 || index >= store.size()) throw new IndexOutOfBoundsException();
+            return store.get(index);
+        }
+
+        @Override
+        public int size() {
+            return store.size();
+        }
+    }
+}
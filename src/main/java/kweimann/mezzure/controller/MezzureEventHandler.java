@@ -1,31 +1,65 @@
 package kweimann.mezzure.controller;
 
+import javafx.animation.AnimationTimer;
+import javafx.application.Platform;
 import javafx.event.EventHandler;
 import javafx.scene.Cursor;
 import javafx.scene.input.MouseEvent;
-import kweimann.mezzure.model.Element1D;
 import kweimann.mezzure.model.Interval;
+import kweimann.mezzure.model.IntervalIndex;
+import kweimann.mezzure.model.IntervalStore;
+import kweimann.mezzure.model.PersistentIntervalSet;
 import kweimann.mezzure.model.Point;
-import kweimann.mezzure.util.Collections;
-import kweimann.mezzure.util.Window;
+import kweimann.mezzure.monitoring.*;
+import kweimann.mezzure.util.FeatureIndex;
 import kweimann.mezzure.view.DrawingContext;
 
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.LongUnaryOperator;
 
 public final class MezzureEventHandler implements EventHandler<MouseEvent> {
+    // tolerances in pixels; they cover more or less of the domain depending on the view's zoom
     private static final int intervalToleranceSpan = 10;
     private static final int pointToleranceSpan = 10;
+    private static final int snapToleranceSpan = 8;
+    // number of changes that may be undone
+    private static final int historyLimit = 1000;
 
     private final DrawingContext dc;
 
     // current drag event if user is dragging an element
     private DragEvent dragEvent;
-    // last position while hovering over area not occupied by any element
-    private Point lastHoverPosition;
-    // sorted set of currently visible intervals
-    private SortedSet<Interval> intervals = new TreeSet<>(Comparator.comparing(Interval::start));
+    // flight recorder event spanning the current drag
+    private DragTrace dragTrace;
+    // last position while hovering over area not occupied by any element (or -1)
+    private long lastHoverPosition = -1;
+    // sorted index of currently visible intervals
+    private final IntervalIndex intervals = new IntervalIndex();
+    // labeled blank intervals; each one starts at the end of the interval it follows
+    private final IntervalStore blankIntervals = new IntervalStore();
+    // selection state is reused so that hovering does not allocate
+    private final Selection selection = new Selection();
+    // committed versions of the intervals
+    private final History history = new History(historyLimit);
 
     private ChangeListener listener;
+    // features of the background that dragged edges snap onto (or null)
+    private FeatureIndex features;
+    // latencies of handle() are recorded if set
+    private MezzureMetrics metrics;
+
+    // latest move or drag event not handled yet if input is coalesced per pulse (or null)
+    private boolean coalescing;
+    private MouseEvent pendingEvent;
+    private AnimationTimer pulseTimer;
+
+    // batches submitted from any thread and applied together on the next pulse
+    private final Queue<Submission> submissions = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean submissionsScheduled = new AtomicBoolean();
+    private AnimationTimer submissionTimer;
 
     public MezzureEventHandler(DrawingContext dc) {
         this.dc = dc;
@@ -33,64 +67,119 @@ public final class MezzureEventHandler implements EventHandler<MouseEvent> {
 
     @Override
     public void handle(MouseEvent event) {
+        HandleTrace trace = HandleTrace.start();
+        if (metrics == null) {
+            dispatch(event);
+        } else {
+            long start = System.nanoTime();
+            dispatch(event);
+            metrics.recordHandle(event.getEventType(), System.nanoTime() - start);
+        }
+        trace.finish(event.getEventType().getName(), intervals.size());
+    }
+
+    private void dispatch(MouseEvent event) {
+        if (coalescing && (event.getEventType() == MouseEvent.MOUSE_MOVED || event.getEventType() == MouseEvent.MOUSE_DRAGGED)) {
+            // only the latest position is handled on the next pulse
+            if (pendingEvent == null) pulseTimer.start();
+            pendingEvent = event;
+            return;
+        }
+        // other events must not overtake a pending one
+        handlePendingEvent();
+        process(event);
+    }
+
+    /* handles move and drag events only once per pulse (using the latest position) and flushes the drawing context
+     * afterwards; presses, releases and clicks are still handled immediately */
+    public void setCoalescing(boolean coalescing) {
+        if (coalescing && pulseTimer == null) {
+            pulseTimer = new AnimationTimer() {
+                @Override
+                public void handle(long now) {
+                    handlePendingEvent();
+                    dc.flush();
+                }
+            };
+        }
+        this.coalescing = coalescing;
+        if (!coalescing) handlePendingEvent();
+    }
+
+    public boolean isCoalescing() {
+        return coalescing;
+    }
+
+    private void handlePendingEvent() {
+        if (pendingEvent != null) {
+            MouseEvent event = pendingEvent;
+            pendingEvent = null;
+            pulseTimer.stop();
+            process(event);
+        }
+    }
+
+    private void process(MouseEvent event) {
         // handle mouse event
 
         if (event.getEventType() == MouseEvent.MOUSE_PRESSED && dragEvent == null) {
             clearHoverPosition();
-            Point dragStart = getPosition(event);
-            if (dragStart != null) dragEvent = getDragEvent(dragStart);
+            long dragStart = getPosition(event);
+            if (dragStart >= 0) dragEvent = getDragEvent(dragStart);
+            if (dragEvent != null) dragTrace = DragTrace.start(dragEvent.kind());
         } else if (event.getEventType() == MouseEvent.MOUSE_RELEASED && dragEvent != null) {
-            if (listener != null && dragEvent.result() != null && !dragEvent.result().equals(dragEvent.origin()))
-                listener.onChange(dragEvent.origin(), dragEvent.result());
+            boolean committed = dragEvent.isChanged();
+            if (committed) {
+                history.commit(
+                        storeOf(dragEvent.originStart(), dragEvent.originEnd()),
+                        storeOf(dragEvent.start(), dragEvent.end()));
+                if (listener != null)
+                    listener.onChange(dragEvent.origin(), dragEvent.result());
+            }
+            dragTrace.finish(committed, intervals.size());
+            dragTrace = null;
             dragEvent = null;
+            // submissions wait for the drag to end
+            applySubmitted();
         } else if (event.getEventType() == MouseEvent.MOUSE_CLICKED && event.getClickCount() == 2) {
-            Point position = getPosition(event);
+            long position = getPosition(event);
             Interval interval;
-            if (position != null && (interval = overlaps(position)) != null) {
+            if (position >= 0 && (interval = intervals.overlapping(new Point(position))) != null) {
                 // remove selected interval
-                clearBlankIntervals();
-                dc.clear(interval);
-                intervals.remove(interval);
-                drawBlankIntervals();
+                replace(interval, null);
+                history.commit(storeOf(interval), new IntervalStore(0));
                 if (listener != null)
                     listener.onChange(interval, null);
             }
         } else if (dragEvent != null) {
-            // when fitToBorder is true a point is always available
-            Point dragEnd = getPosition(event, true);
-            Interval prev = dragEvent.result();
-            Interval next = dragEvent.updated(dragEnd);
-            // if next == null then prev == null
-            if (next != null) { // creating new interval may produce null if creation has been registered
-                                // but the interval has not been valid yet
-                // before each update clear blank intervals then after the update repaint them
-                clearBlankIntervals();
-                if (prev != null) {
-                    // during the initial phase of creating new interval there is no previous interval yet
-                    intervals.remove(prev);
-                    dc.clear(prev);
-                }
-                intervals.add(next);
-                dc.draw(next);
-                drawBlankIntervals();
-                if (listener != null && !next.equals(prev))
-                    listener.onDrag(prev, next);
+            DragUpdateTrace trace = DragUpdateTrace.start();
+            // when fitToBorder is true a position is always available
+            long dragEnd = getPosition(event, true);
+            // during the initial phase of creating new interval there is no previous interval yet (a start of -1)
+            long prevStart = dragEvent.start();
+            long prevEnd = dragEvent.end();
+            // creating new interval may not produce a result if creation has been registered but the interval has
+            // not been valid yet
+            boolean changed = dragEvent.update(dragEnd);
+            if (changed) {
+                replace(prevStart, prevEnd, dragEvent.start(), dragEvent.end());
+                dragTrace.updated();
+                // intervals are only materialized for the listener
+                if (listener != null)
+                    listener.onDrag(interval(prevStart, prevEnd), dragEvent.result());
             }
+            trace.finish(dragEnd, changed, intervals.size());
         }
 
         // handle cursor updates
 
         if (dragEvent == null) {
-            Point position = getPosition(event);
-            if (position != null) {
+            long position = getPosition(event);
+            if (position >= 0) {
                 Selection selection = getSelection(position);
-                if (selection != null) {
+                if (selection.type != null) {
                     clearHoverPosition();
-                    if (selection instanceof PointSelection) {
-                        dc.setCursor(Cursor.H_RESIZE);
-                    } else if (selection instanceof IntervalSelection) {
-                        dc.setCursor(Cursor.MOVE);
-                    } else throw new IllegalArgumentException("unknown selection");
+                    dc.setCursor(selection.type == SelectionType.INTERVAL ? Cursor.MOVE : Cursor.H_RESIZE);
                 } else {
                     updateHoverPosition(position);
                     dc.setCursor(Cursor.DEFAULT);
@@ -106,16 +195,27 @@ public final class MezzureEventHandler implements EventHandler<MouseEvent> {
         this.listener = listener;
     }
 
+    /* snaps the dragged edges onto the nearest feature (e.g. an extremum or a zero crossing of the plotted series)
+     * within a few pixels; positions of the features are domain coordinates. null turns snapping off */
+    public void setSnapping(FeatureIndex features) {
+        this.features = features;
+    }
+
+    /* records the latency of every handled event and reports the number of intervals */
+    public void setMetrics(MezzureMetrics metrics) {
+        this.metrics = metrics;
+        if (metrics != null) metrics.setIntervalCount(intervals::size);
+    }
+
+    /* live view of the intervals that may only be used on the FX thread (see snapshot() for other threads) */
     public Iterable<Interval> getIntervals() {
         return intervals;
     }
 
     public boolean addInterval(Interval interval) {
-        if (overlaps(interval) == null) {
-            clearBlankIntervals();
-            intervals.add(interval);
-            dc.draw(interval);
-            drawBlankIntervals();
+        if (intervals.overlapping(interval) == null) {
+            replace(null, interval);
+            history.commit(new IntervalStore(0), storeOf(interval));
             return true;
         }
         return false;
@@ -123,317 +223,685 @@ public final class MezzureEventHandler implements EventHandler<MouseEvent> {
 
     public boolean removeInterval(Interval interval) {
         if (intervals.contains(interval)) {
-            clearBlankIntervals();
-            intervals.remove(interval);
-            dc.clear(interval);
-            drawBlankIntervals();
+            replace(interval, null);
+            history.commit(storeOf(interval), new IntervalStore(0));
             return true;
         }
         return false;
     }
 
-    private void clearBlankIntervals() {
-        for (Window<Interval> window : Collections.slideWindow(intervals, 2)) {
-            Interval interval = new Interval(window.get(0).end(), window.get(1).start());
-            dc.clearText(interval);
+    /* adds all intervals that neither overlap existing intervals nor each other */
+    public BulkResult addIntervals(Collection<Interval> batch) {
+        List<Interval> sorted = new ArrayList<>(batch);
+        sorted.sort(Comparator.comparing(Interval::start));
+
+        List<Interval> accepted = new ArrayList<>();
+        List<Interval> rejected = new ArrayList<>();
+
+        if (!sorted.isEmpty()) {
+            // merge the sorted batch with the existing intervals in a single pass
+            Iterator<Interval> existing = intervals.tail(sorted.get(0).start()).iterator();
+            Interval next = existing.hasNext() ? existing.next() : null;
+            Interval last = null;
+
+            for (Interval interval : sorted) {
+                // skip existing intervals lying entirely before the interval
+                while (next != null && next.end().compareTo(interval.start()) < 0)
+                    next = existing.hasNext() ? existing.next() : null;
+
+                if ((next != null && next.overlaps(interval)) || (last != null && last.overlaps(interval))) {
+                    rejected.add(interval);
+                } else {
+                    accepted.add(interval);
+                    last = interval;
+                }
+            }
         }
+
+        IntervalStore added = storeOf(accepted);
+        insertAll(added);
+        history.commit(new IntervalStore(0), added);
+
+        return new BulkResult(accepted, rejected);
     }
 
-    private void drawBlankIntervals() {
-        for (Window<Interval> window : Collections.slideWindow(intervals, 2)) {
-            Interval interval = new Interval(window.get(0).end(), window.get(1).start());
-            dc.addText(interval);
+    /* adds sorted intervals that do not overlap each other and lie within the domain (e.g. read by IntervalFile) in a
+     * single merge pass without materializing them for the overlap checks; intervals overlapping existing intervals
+     * are skipped. returns the number of added intervals */
+    public int addIntervals(IntervalStore sorted) {
+        long domainStart = dc.getStart().center();
+        long domainEnd = dc.getEnd().center();
+        for (int slot = 0; slot < sorted.size(); slot++) {
+            if (sorted.start(slot) >= sorted.end(slot)) throw new IllegalArgumentException("empty interval");
+            if (slot > 0 && sorted.start(slot) <= sorted.end(slot - 1)) throw new IllegalArgumentException("intervals overlap");
+            if (sorted.start(slot) < domainStart || sorted.end(slot) > domainEnd)
+                throw new IllegalArgumentException("interval outside the domain");
         }
+
+        IntervalStore existing = intervals.store();
+        IntervalStore accepted = new IntervalStore(sorted.size());
+        if (existing.size() == 0) {
+            // the history keeps the added intervals so they are copied from the caller's store
+            accepted.insertAll(sorted);
+        } else if (sorted.size() > 0) {
+            int next = existing.firstEndingAtOrAfter(sorted.start(0));
+            for (int slot = 0; slot < sorted.size(); slot++) {
+                long start = sorted.start(slot);
+                long end = sorted.end(slot);
+                // skip existing intervals lying entirely before the interval
+                while (next < existing.size() && existing.end(next) < start) next++;
+                if (next < existing.size() && existing.overlaps(next, start, end)) continue;
+                accepted.insert(start, end);
+            }
+        }
+
+        insertAll(accepted);
+        history.commit(new IntervalStore(0), accepted);
+
+        return accepted.size();
     }
 
-    private void clearHoverPosition() {
-        updateHoverPosition(null);
+    /* removes all intervals that are currently visible */
+    public BulkResult removeIntervals(Collection<Interval> batch) {
+        Set<Interval> accepted = new LinkedHashSet<>();
+        List<Interval> rejected = new ArrayList<>();
+
+        for (Interval interval : batch) {
+            if (!intervals.contains(interval) || !accepted.add(interval))
+                rejected.add(interval);
+        }
+
+        IntervalStore removed = storeOf(accepted);
+        deleteAll(removed);
+        history.commit(removed, new IntervalStore(0));
+
+        return new BulkResult(new ArrayList<>(accepted), rejected);
+    }
+
+    /* reverts the last committed change (a drag, a removal or a single or bulk operation), repaints only the
+     * intervals it touched and reports them to the listener; returns the reverted change or null if there is none or
+     * an interval is being dragged */
+    public History.Change undo() {
+        if (dragEvent != null || !history.canUndo()) return null;
+        History.Change change = history.undo();
+        apply(change.addedStore(), change.removedStore());
+        notifyChanged(change.addedStore(), change.removedStore());
+        return change;
+    }
+
+    /* applies the last undone change again; returns the change or null if there is none */
+    public History.Change redo() {
+        if (dragEvent != null || !history.canRedo()) return null;
+        History.Change change = history.redo();
+        apply(change.removedStore(), change.addedStore());
+        notifyChanged(change.removedStore(), change.addedStore());
+        return change;
     }
 
-    private void updateHoverPosition(Point updated) {
-        if (lastHoverPosition != null) {
-            dc.clear(lastHoverPosition);
-            lastHoverPosition = null;
+    /* returns the intervals as of the last committed change; snapshots are immutable and share their structure.
+     * may be called from any thread without locking */
+    public PersistentIntervalSet snapshot() {
+        return history.current();
+    }
+
+    /* queues intervals to be added on the next pulse; may be called from any thread. the result is completed on the
+     * FX thread once the batch has been applied (see applySubmitted() for how conflicts are resolved) */
+    public CompletableFuture<BulkResult> submitAdd(Collection<Interval> batch) {
+        return submit(new Submission(true, batch));
+    }
+
+    /* queues intervals to be removed on the next pulse; may be called from any thread */
+    public CompletableFuture<BulkResult> submitRemove(Collection<Interval> batch) {
+        return submit(new Submission(false, batch));
+    }
+
+    /* applies all submitted batches as a single change with a single repaint; called on every pulse with submissions.
+     * conflicts are resolved the same way every time, with the user's edits taking precedence:
+     * - nothing is applied while an interval is dragged; the batches are applied once it is released
+     * - all removals are applied before all additions
+     * - removals of intervals that no longer exist (e.g. moved by the user) are rejected
+     * - additions overlapping an existing interval or an addition submitted earlier are rejected
+     * returns the number of applied batches */
+    public int applySubmitted() {
+        submissionsScheduled.set(false);
+        if (dragEvent != null || submissions.isEmpty()) return 0;
+
+        List<Submission> batches = new ArrayList<>();
+        for (Submission submission; (submission = submissions.poll()) != null; )
+            batches.add(submission);
+
+        clearHoverPosition();
+        Set<Interval> accepted = new LinkedHashSet<>();
+        for (Submission submission : batches) {
+            if (submission.add) continue;
+            for (Interval interval : submission.batch) {
+                if (intervals.contains(interval) && accepted.add(interval)) submission.accepted.add(interval);
+                else submission.rejected.add(interval);
+            }
         }
-        if (updated != null) {
-            lastHoverPosition = updated;
-            dc.draw(lastHoverPosition);
+        IntervalStore removed = storeOf(accepted);
+        deleteAll(removed);
+
+        IntervalIndex added = new IntervalIndex();
+        for (Submission submission : batches) {
+            if (!submission.add) continue;
+            for (Interval interval : submission.batch) {
+                if (intervals.overlapping(interval) == null && added.overlapping(interval) == null) {
+                    added.add(interval);
+                    submission.accepted.add(interval);
+                } else submission.rejected.add(interval);
+            }
         }
+        IntervalStore sorted = new IntervalStore(added.size());
+        sorted.insertAll(added.store());
+        insertAll(sorted);
+
+        history.commit(removed, sorted);
+        for (Submission submission : batches)
+            submission.result.complete(new BulkResult(submission.accepted, submission.rejected));
+        return batches.size();
     }
 
-    private Selection getSelection(Point point) {
-        Selection selection = null;
-
-        // choose the closest element (relative to the point) that overlaps the point
-        for (Interval interval : intervals) {
-            if (interval.overlaps(point) || point.distance(interval) <= intervalToleranceSpan) {
-                Element1D selected;
-
-                int distanceToStart = interval.start().distance(point);
-                int distanceToEnd = interval.end().distance(point);
-
-                // determine whether to select interval start/end points or the interval itself
-                if (distanceToStart < distanceToEnd && distanceToStart <= pointToleranceSpan) {
-                    selected = interval.start();
-                } else if (distanceToStart > distanceToEnd && distanceToEnd <= pointToleranceSpan) {
-                    selected = interval.end();
-                } else {
-                    selected = interval;
+    private CompletableFuture<BulkResult> submit(Submission submission) {
+        submissions.add(submission);
+        if (submissionsScheduled.compareAndSet(false, true)) {
+            Platform.runLater(() -> {
+                if (submissionTimer == null) {
+                    submissionTimer = new AnimationTimer() {
+                        @Override
+                        public void handle(long now) {
+                            stop();
+                            applySubmitted();
+                        }
+                    };
                 }
+                submissionTimer.start();
+            });
+        }
+        return submission.result;
+    }
 
-                if (selection == null || selection.selected().distance(point) > selected.distance(point))
-                    selection = selected instanceof Interval
-                            ? new IntervalSelection((Interval) selected)
-                            : new PointSelection((Point) selected, interval);
-            }
+    // replaces intervals known to fit (they are part of an earlier version) without committing
+    private void apply(IntervalStore removed, IntervalStore added) {
+        clearHoverPosition();
+        if (removed.size() <= 1 && added.size() <= 1) {
+            replace(removed.size() == 0 ? -1 : removed.start(0), removed.size() == 0 ? -1 : removed.end(0),
+                    added.size() == 0 ? -1 : added.start(0), added.size() == 0 ? -1 : added.end(0));
+        } else {
+            deleteAll(removed);
+            insertAll(added);
         }
+    }
 
-        return selection;
+    // reports replacing `removed` with `added` as a single change if it swaps one interval for another (e.g. an undone
+    // drag) and as one change per interval otherwise
+    private void notifyChanged(IntervalStore removed, IntervalStore added) {
+        if (listener == null) return;
+        if (removed.size() == 1 && added.size() == 1) {
+            listener.onChange(removed.get(0), added.get(0));
+            return;
+        }
+        for (int slot = 0; slot < removed.size(); slot++)
+            listener.onChange(removed.get(slot), null);
+        for (int slot = 0; slot < added.size(); slot++)
+            listener.onChange(null, added.get(slot));
     }
 
-    private Interval overlaps(Element1D element) {
-        for (Interval interval : intervals)
-            if (interval.overlaps(element)) return interval;
-        return null;
+    // adds intervals that overlap neither each other nor any existing interval
+    private void insertAll(IntervalStore sorted) {
+        intervals.addAll(sorted);
+        for (int slot = 0; slot < sorted.size(); slot++)
+            dc.drawInterval(sorted.start(slot), sorted.end(slot));
+        // update blank intervals once all intervals are in place to avoid relabeling the same blank interval
+        IntervalStore store = intervals.store();
+        for (int slot = 0; slot < sorted.size(); slot++) {
+            int stored = store.indexOf(sorted.start(slot));
+            updateBlankInterval(stored - 1);
+            updateBlankInterval(stored);
+        }
     }
 
-    private Point getPosition(MouseEvent event) {
-        return getPosition(event, false);
+    // removes stored intervals in a single pass over the index
+    private void deleteAll(IntervalStore sorted) {
+        intervals.removeAll(sorted);
+        for (int slot = 0; slot < sorted.size(); slot++) {
+            dc.clearInterval(sorted.start(slot), sorted.end(slot));
+            clearBlankInterval(sorted.end(slot));
+        }
+        IntervalStore store = intervals.store();
+        for (int slot = 0; slot < sorted.size(); slot++)
+            updateBlankInterval(store.floor(sorted.start(slot) - 1));
     }
 
-    private Point getPosition(MouseEvent event, boolean fitToBorder) {
-        return dc.getPoint((int) event.getX(), (int) event.getY(), fitToBorder);
+    // packs the interval (or none if it is null) into a store for the history
+    private static IntervalStore storeOf(Interval interval) {
+        return interval == null
+                ? new IntervalStore(0)
+                : storeOf(interval.start().center(), interval.end().center());
     }
 
-    private DragEvent getDragEvent(Point dragStart) {
-        Selection selection = getSelection(dragStart);
+    // packs the interval [start, end] (or none if start is -1) into a store for the history
+    private static IntervalStore storeOf(long start, long end) {
+        IntervalStore store = new IntervalStore(1);
+        if (start >= 0) store.insert(start, end);
+        return store;
+    }
 
-        if (selection != null) {
-            if (selection instanceof IntervalSelection) {
-                // move an existing interval
-                IntervalSelection intervalSelection = (IntervalSelection) selection;
+    // materializes the interval [start, end] or returns null if start is -1
+    private static Interval interval(long start, long end) {
+        return start < 0 ? null : new Interval(new Point(start), new Point(end));
+    }
 
-                SortedSet<Interval> remainingIntervals = new TreeSet<>(intervals);
-                remainingIntervals.remove(intervalSelection.selected());
+    // packs non-overlapping intervals given in any order into a store
+    private static IntervalStore storeOf(Collection<Interval> intervals) {
+        List<Interval> sorted = new ArrayList<>(intervals);
+        sorted.sort(Comparator.comparing(Interval::start));
+        long[] starts = new long[sorted.size()];
+        long[] ends = new long[sorted.size()];
+        for (int i = 0; i < sorted.size(); i++) {
+            starts[i] = sorted.get(i).start().center();
+            ends[i] = sorted.get(i).end().center();
+        }
+        IntervalStore store = new IntervalStore(sorted.size());
+        store.insertAll(starts, ends, sorted.size());
+        return store;
+    }
 
-                return new IntervalMove(dragStart, intervalSelection.selected(), remainingIntervals, dc);
-            } else if (selection instanceof PointSelection) {
-                // resize an existing interval
-                PointSelection pointSelection = (PointSelection) selection;
+    /* replaces `removed` with `added` (either may be null) and relabels only the blank intervals around them */
+    private void replace(Interval removed, Interval added) {
+        replace(removed == null ? -1 : removed.start().center(), removed == null ? -1 : removed.end().center(),
+                added == null ? -1 : added.start().center(), added == null ? -1 : added.end().center());
+    }
 
-                SortedSet<Interval> remainingIntervals = new TreeSet<>(intervals);
-                remainingIntervals.remove(pointSelection.parent());
+    /* primitive variant of the above where a start of -1 stands for no interval; neither intervals nor their labels
+     * are materialized so that drag ticks do not allocate */
+    private void replace(long removedStart, long removedEnd, long addedStart, long addedEnd) {
+        boolean removed = removedStart >= 0;
+        boolean added = addedStart >= 0;
+        if (removed) dc.clearInterval(removedStart, removedEnd);
+
+        if (removed && added) intervals.replace(removedStart, removedEnd, addedStart, addedEnd);
+        else if (removed) intervals.remove(removedStart, removedEnd);
+        else if (added) intervals.add(addedStart, addedEnd);
+
+        if (added) dc.drawInterval(addedStart, addedEnd);
+
+        LabelTrace trace = LabelTrace.start();
+        IntervalStore store = intervals.store();
+        // blank intervals are updated in place wherever possible since inserting and removing shifts the store
+        if (removed && added) moveBlankInterval(removedEnd, store.indexOf(addedStart));
+        else if (removed) clearBlankInterval(removedEnd);
+        else if (added) updateBlankInterval(store.indexOf(addedStart));
+
+        // the interval preceding `added` got a new next interval
+        if (added) updateBlankInterval(store.indexOf(addedStart) - 1);
+        // the interval preceding `removed` lost its next interval
+        if (removed) updateBlankInterval(store.floor(removedStart - 1));
+        trace.finish(blankIntervals.size());
+    }
 
-                return getResizeEvent(pointSelection.notSelected(), pointSelection.parent(), remainingIntervals);
-            } else throw new IllegalArgumentException("unknown selection");
-        } else {
-            // create a new interval
-            return getResizeEvent(dragStart, null, intervals);
+    /* relabels the blank interval following the interval that ended at `from` as the one following the interval in
+     * the slot */
+    private void moveBlankInterval(long from, int slot) {
+        int blank = blankIntervals.indexOf(from);
+        if (blank < 0) {
+            updateBlankInterval(slot);
+            return;
         }
+
+        IntervalStore store = intervals.store();
+        long end = store.end(slot);
+        boolean hasNext = slot + 1 < store.size();
+        if (hasNext && from == end && blankIntervals.end(blank) == store.start(slot + 1))
+            return;
+
+        dc.clearText(blankIntervals.start(blank), blankIntervals.end(blank));
+        if (hasNext) {
+            blankIntervals.replace(blank, end, store.start(slot + 1));
+            dc.addText(end, store.start(slot + 1));
+        } else blankIntervals.remove(blank);
     }
 
-    private IntervalResize getResizeEvent(Point dragStart, Interval origin, Collection<Interval> remainingIntervals) {
-        // slide a window over all intervals to find the blank intervals in between
-        for (Window<Interval> window : Collections.slideWindow(remainingIntervals, 2, 1)) {
-            Interval dragSpace = getIntervalInBetween(window.get(0), window.get(1));
-            if (dragSpace != null && dragSpace.overlaps(dragStart)) {
-                return new IntervalResize(dragStart, dragSpace, origin);
-            }
+    /* labels the blank interval between the interval in the slot (if any) and its next interval */
+    private void updateBlankInterval(int slot) {
+        if (slot < 0) return;
+
+        IntervalStore store = intervals.store();
+        long end = store.end(slot);
+        boolean hasNext = slot + 1 < store.size();
+        long next = hasNext ? store.start(slot + 1) : -1;
+        int blank = blankIntervals.indexOf(end);
+
+        if (blank >= 0) {
+            if (hasNext && blankIntervals.end(blank) == next) return;
+            dc.clearText(blankIntervals.start(blank), blankIntervals.end(blank));
+            if (hasNext) blankIntervals.replace(blank, end, next);
+            else blankIntervals.remove(blank);
+        } else if (hasNext) {
+            blankIntervals.insert(end, next);
         }
-        return null;
+
+        if (hasNext)
+            dc.addText(end, next);
     }
 
-    private Interval getIntervalInBetween(Interval prev, Interval next) {
-        Point a = prev == null ? dc.getStart() : prev.end().move(1);
-        Point b = next == null ? dc.getEnd() : next.start().move(-1);
+    /* removes the label of the blank interval following the interval that ends at `end` */
+    private void clearBlankInterval(long end) {
+        int blank = blankIntervals.indexOf(end);
+        if (blank >= 0) {
+            dc.clearText(blankIntervals.start(blank), blankIntervals.end(blank));
+            blankIntervals.remove(blank);
+        }
+    }
 
-        if (a.compareTo(b) >= 0) return null;
+    private void clearHoverPosition() {
+        updateHoverPosition(-1);
+    }
 
-        return new Interval(a, b);
+    private void updateHoverPosition(long updated) {
+        if (updated == lastHoverPosition) return;
+        if (lastHoverPosition >= 0)
+            dc.clearPoint(lastHoverPosition);
+        lastHoverPosition = updated;
+        if (updated >= 0)
+            dc.drawPoint(updated);
     }
 
-    private interface DragEvent {
-        Interval updated(Point dragEnd);
-        Interval origin();
-        Interval result();
+    private Selection getSelection(long x) {
+        SelectionTrace trace = SelectionTrace.start();
+        IntervalStore store = intervals.store();
+        selection.clear();
+        int candidates = 0;
+
+        long intervalTolerance = dc.getLength(intervalToleranceSpan);
+        long pointTolerance = dc.getLength(pointToleranceSpan);
+
+        // choose the closest element (relative to the point) that overlaps the point
+        for (int slot = store.firstEndingAtOrAfter(x - intervalTolerance);
+             slot < store.size() && store.start(slot) <= x + intervalTolerance;
+             slot++) {
+            SelectionType type;
+            long distance;
+
+            long distanceToStart = Math.abs(store.start(slot) - x);
+            long distanceToEnd = Math.abs(store.end(slot) - x);
+
+            // determine whether to select interval start/end points or the interval itself
+            if (distanceToStart < distanceToEnd && distanceToStart <= pointTolerance) {
+                type = SelectionType.START;
+                distance = distanceToStart;
+            } else if (distanceToStart > distanceToEnd && distanceToEnd <= pointTolerance) {
+                type = SelectionType.END;
+                distance = distanceToEnd;
+            } else {
+                type = SelectionType.INTERVAL;
+                distance = store.distance(slot, x, x);
+            }
+
+            if (selection.type == null || selection.distance > distance)
+                selection.set(type, store.start(slot), store.end(slot), distance);
+            candidates++;
+        }
+
+        trace.finish(x, candidates, selection.type == null ? "NONE" : selection.type.name(), store.size());
+        return selection;
     }
 
-    private static class IntervalMove implements DragEvent {
+    private long getPosition(MouseEvent event) {
+        return getPosition(event, false);
+    }
 
-        private final Point dragStart;
-        private final Interval origin;
-        private final Collection<Interval> remainingIntervals;
-        private final DrawingContext gc;
+    private long getPosition(MouseEvent event, boolean fitToBorder) {
+        return dc.getX((int) event.getX(), (int) event.getY(), fitToBorder);
+    }
 
-        private Interval interval;
+    private DragEvent getDragEvent(long dragStart) {
+        Selection selection = getSelection(dragStart);
 
-        IntervalMove(Point dragStart, Interval origin, Collection<Interval> remainingIntervals, DrawingContext gc) {
-            this.dragStart = dragStart;
-            this.origin = origin;
-            this.remainingIntervals = remainingIntervals;
-            this.gc = gc;
-            this.interval = origin;
+        if (selection.type == SelectionType.INTERVAL) {
+            // move an existing interval
+            return new IntervalMove(dragStart, selection.start, selection.end, intervals, dc, snap());
+        } else if (selection.type != null) {
+            // resize an existing interval
+            return getResizeEvent(selection.notSelected(), selection.start, selection.end);
+        } else {
+            // create a new interval
+            return getResizeEvent(dragStart, -1, -1);
         }
+    }
 
-        @Override
-        public Interval updated(Point dragEnd) {
-            int displacement = dragStart.displacement(dragEnd);
+    // the origin is [originStart, originEnd] or none if originStart is -1
+    private IntervalResize getResizeEvent(long dragStart, long originStart, long originEnd) {
+        IntervalStore store = intervals.store();
+        int excluded = originStart < 0 ? -1 : store.indexOf(originStart, originEnd);
 
-            displacement = displacement < 0
-                    ? Math.max(displacement, origin.start().displacement(gc.getStart()))    // move left
-                    : Math.min(displacement, origin.end().displacement(gc.getEnd()));       // move right
+        // the blank interval around the drag start lies between its neighbours (ignoring the resized interval)
+        int prev = store.lower(store.floor(dragStart), excluded);
+        int next = store.higher(store.floor(dragStart) + 1, excluded);
+        long a = prev < 0 ? dc.getStart().center() : store.end(prev) + 1;
+        long b = next < 0 ? dc.getEnd().center() : store.start(next) - 1;
 
-            interval = adjustIntervalOnOverlap(origin.move(displacement), dragEnd);
-            return interval;
+        if (a < b && a <= dragStart && dragStart <= b) {
+            return new IntervalResize(dragStart, a, b, originStart, originEnd, snap());
         }
+        return null;
+    }
 
-        @Override
-        public Interval origin() {
-            return origin;
+    // returns the snapping of the current drag; the radius is fixed for a drag since the view does not change
+    private LongUnaryOperator snap() {
+        FeatureIndex features = this.features;
+        if (features == null) return LongUnaryOperator.identity();
+        long radius = dc.getLength(snapToleranceSpan);
+        return x -> features.snap(x, radius);
+    }
+
+    // drag of an interval from its origin to its result; both are kept as primitive bounds so that drag ticks do not
+    // allocate. a start of -1 stands for no interval (e.g. the origin of a created interval)
+    private abstract static class DragEvent {
+        private final long originStart;
+        private final long originEnd;
+        private long start;
+        private long end;
+
+        DragEvent(long originStart, long originEnd) {
+            this.originStart = originStart;
+            this.originEnd = originEnd;
+            this.start = originStart;
+            this.end = originEnd;
         }
 
-        @Override
-        public Interval result() {
-            return interval;
-        }
-
-        private Interval adjustIntervalOnOverlap(Interval updated, Point dragEnd) {
-            Interval overlapping = getClosestOverlappingInterval(updated);
-
-            if (overlapping != null) {
-                for (Window<Interval> window : Collections.slideWindow(remainingIntervals, 3, 1)) {
-                    Interval interval = window.get(1);
-
-                    if (interval.equals(overlapping)) {
-                        // choose where to move `updated` based on the cursor's position relative to overlapping interval's center
-                        if (interval.center() > dragEnd.center()) {
-                            Interval prev = window.get(0);
-                            Point lastLeftSpot = prev == null ? gc.getStart() : prev.end().move(1);
-
-                            // check if `updated` fits in the space on interval's left
-                            if (lastLeftSpot.displacement(interval.start()) > updated.length()) {
-                                // move `updated` left
-                                return new Interval(interval.start().move(-updated.length() - 1), interval.start().move(-1));
-                            }
-                        } else {
-                            Interval next = window.get(2);
-                            Point lastRightSpot = next == null ? gc.getEnd() : next.start().move(-1);
-
-                            // check if `updated` fits in the space on interval's right
-                            if (interval.end().displacement(lastRightSpot) > updated.length()) {
-                                // move `updated` right
-                                return new Interval(interval.end().move(updated.length() + 1), interval.end().move(1));
-                            }
-                        }
+        /* moves the result along with the drag; returns false if the drag did not change it */
+        abstract boolean update(long dragEnd);
 
-                        // no viable spot could be found so don't update interval at all
-                        return this.interval;
-                    }
-                }
-            }
+        /* create, move or resize */
+        abstract String kind();
 
-            // `updated` does not overlap with any interval so allow the update
-            return updated;
+        long originStart() {
+            return originStart;
         }
 
-        private Interval getClosestOverlappingInterval(Interval updated) {
-            Interval overlapping = null;
+        long originEnd() {
+            return originEnd;
+        }
 
-            for (Interval interval : remainingIntervals) {
-                if (interval.overlaps(updated)
-                        && (overlapping == null || distance(overlapping.center(), updated.center())
-                        > distance(interval.center(), updated.center()))) {
-                    overlapping = interval;
-                }
-            }
+        long start() {
+            return start;
+        }
 
-            return overlapping;
+        long end() {
+            return end;
         }
 
-        private static int distance(int a, int b) {
-            return Math.abs(b - a);
+        /* true if there is a result and it differs from the origin */
+        boolean isChanged() {
+            return start >= 0 && (start != originStart || end != originEnd);
         }
-    }
 
-    private static class IntervalResize implements DragEvent {
+        Interval origin() {
+            return interval(originStart, originEnd);
+        }
 
-        private final Point dragStart;
-        private final Interval dragSpace;
-        private final Interval origin;
+        Interval result() {
+            return interval(start, end);
+        }
 
-        private Interval interval;
+        // returns false if the result already spans [start, end]
+        boolean moveTo(long start, long end) {
+            if (this.start == start && this.end == end) return false;
+            this.start = start;
+            this.end = end;
+            return true;
+        }
+    }
 
-        IntervalResize(Point dragStart, Interval dragSpace, Interval origin) {
+    private static class IntervalMove extends DragEvent {
+
+        private final long dragStart;
+        // live intervals; the moved interval is always present at its current position and thus excluded from queries
+        private final IntervalIndex intervals;
+        private final DrawingContext gc;
+        private final LongUnaryOperator snap;
+
+        IntervalMove(long dragStart, long originStart, long originEnd, IntervalIndex intervals, DrawingContext gc,
+                     LongUnaryOperator snap) {
+            super(originStart, originEnd);
             this.dragStart = dragStart;
-            this.dragSpace = dragSpace;
-            this.origin = origin;
-            this.interval = origin;
+            this.intervals = intervals;
+            this.gc = gc;
+            this.snap = snap;
         }
 
         @Override
-        public Interval updated(Point dragEnd) {
-            dragEnd = fitToDragSpace(dragEnd);
-            if (!dragStart.equals(dragEnd))
-                interval = new Interval(dragStart, dragEnd);
-            return interval;
-        }
+        boolean update(long dragEnd) {
+            long displacement = dragEnd - dragStart;
 
-        @Override
-        public Interval origin() {
-            return origin;
+            // snap the edge closer to where the interval has been grabbed
+            long edge = dragStart - originStart() <= originEnd() - dragStart
+                    ? originStart() + displacement
+                    : originEnd() + displacement;
+            displacement += snap.applyAsLong(edge) - edge;
+
+            displacement = displacement < 0
+                    ? Math.max(displacement, gc.getStart().center() - originStart())  // move left
+                    : Math.min(displacement, gc.getEnd().center() - originEnd());     // move right
+
+            OverlapTrace trace = OverlapTrace.start();
+            long start = originStart() + displacement;
+            boolean changed = adjustIntervalOnOverlap(start, originEnd() + displacement, dragEnd);
+            trace.finish(start() != start, intervals.size());
+            return changed;
         }
 
         @Override
-        public Interval result() {
-            return interval;
+        String kind() {
+            return "move";
         }
 
-        private Point fitToDragSpace(Point position) {
-            if (position.compareTo(dragSpace.start()) < 0) return dragSpace.start();
-            else if (position.compareTo(dragSpace.end()) > 0) return dragSpace.end();
-            else return position;
+        // moves the result to [start, end] or next to the interval it would overlap; returns false if it stays
+        private boolean adjustIntervalOnOverlap(long start, long end, long dragEnd) {
+            IntervalStore store = intervals.store();
+            int excluded = store.indexOf(start(), end());
+            int overlapping = store.closestOverlapping(start, end, excluded);
+            long length = end - start;
+
+            if (overlapping >= 0) {
+                // choose where to move the interval based on the cursor's position relative to overlapping interval's center
+                if (store.center(overlapping) > dragEnd) {
+                    int prev = store.lower(overlapping - 1, excluded);
+                    long lastLeftSpot = prev < 0 ? gc.getStart().center() : store.end(prev) + 1;
+
+                    // check if the interval fits in the space on overlapping interval's left
+                    if (store.start(overlapping) - lastLeftSpot > length) {
+                        // move the interval left
+                        return moveTo(store.start(overlapping) - length - 1, store.start(overlapping) - 1);
+                    }
+                } else {
+                    int next = store.higher(overlapping + 1, excluded);
+                    long lastRightSpot = next < 0 ? gc.getEnd().center() : store.start(next) - 1;
+
+                    // check if the interval fits in the space on overlapping interval's right
+                    if (lastRightSpot - store.end(overlapping) > length) {
+                        // move the interval right
+                        return moveTo(store.end(overlapping) + 1, store.end(overlapping) + length + 1);
+                    }
+                }
+
+                // no viable spot could be found so don't update interval at all
+                return false;
+            }
+
+            // the interval does not overlap with any other interval so allow the update
+            return moveTo(start, end);
         }
     }
 
-    private interface Selection {
-        Element1D selected();
-    }
+    private static class IntervalResize extends DragEvent {
 
-    private static class IntervalSelection implements Selection {
+        private final long dragStart;
+        private final long dragSpaceStart;
+        private final long dragSpaceEnd;
+        private final LongUnaryOperator snap;
 
-        private final Interval selected;
+        IntervalResize(long dragStart, long dragSpaceStart, long dragSpaceEnd, long originStart, long originEnd,
+                       LongUnaryOperator snap) {
+            super(originStart, originEnd);
+            this.dragStart = dragStart;
+            this.dragSpaceStart = dragSpaceStart;
+            this.dragSpaceEnd = dragSpaceEnd;
+            this.snap = snap;
+        }
 
-        IntervalSelection(Interval selected) {
-            this.selected = selected;
+        @Override
+        boolean update(long dragEnd) {
+            dragEnd = Math.min(Math.max(snap.applyAsLong(dragEnd), dragSpaceStart), dragSpaceEnd);
+            return dragStart != dragEnd && moveTo(Math.min(dragStart, dragEnd), Math.max(dragStart, dragEnd));
         }
 
         @Override
-        public Interval selected() {
-            return selected;
+        String kind() {
+            return originStart() < 0 ? "create" : "resize";
         }
     }
 
-    private static class PointSelection implements Selection {
-        private final Point selected;
-        private final Interval parent;
+    private enum SelectionType { START, END, INTERVAL }
+
+    private static class Submission {
+        final boolean add;
+        final List<Interval> batch;
+        final List<Interval> accepted = new ArrayList<>();
+        final List<Interval> rejected = new ArrayList<>();
+        final CompletableFuture<BulkResult> result = new CompletableFuture<>();
 
-        PointSelection(Point selected, Interval parent) {
-            this.selected = selected;
-            this.parent = parent;
+        Submission(boolean add, Collection<Interval> batch) {
+            this.add = add;
+            // the caller may keep changing its collection
+            this.batch = new ArrayList<>(batch);
         }
+    }
 
-        @Override
-        public Point selected() {
-            return selected;
+    private static class Selection {
+        // null if nothing is selected
+        private SelectionType type;
+        // interval the selected element belongs to
+        private long start;
+        private long end;
+        // distance between the selected element and the point
+        private long distance;
+
+        void set(SelectionType type, long start, long end, long distance) {
+            this.type = type;
+            this.start = start;
+            this.end = end;
+            this.distance = distance;
         }
 
-        Interval parent() {
-            return parent;
+        void clear() {
+            type = null;
         }
 
-        Point notSelected() {
-            if (parent.start().equals(selected)) return parent.end();
-            else if (parent.end().equals(selected)) return parent.start();
+        long notSelected() {
+            if (type == SelectionType.START) return end;
+            else if (type == SelectionType.END) return start;
             else throw new NoSuchElementException("bad selection");
         }
     }
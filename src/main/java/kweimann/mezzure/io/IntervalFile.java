@@ -0,0 +1,148 @@
+package kweimann.mezzure.io;
+
+import kweimann.mezzure.model.Interval;
+import kweimann.mezzure.model.IntervalStore;
+import kweimann.mezzure.util.VarInts;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/* compact binary file of sorted, non-overlapping intervals
+ * header:  magic, version, number of intervals, payload length in bytes, CRC32 of the payload
+ * payload: (start - previous end, length) per interval as unsigned varints; the first start is stored as is.
+ * intervals neither overlap nor touch so every gap but the first and every length is at least one; this is verified
+ * while reading along with the domain so that the intervals may be added without any further overlap checks */
+public final class IntervalFile {
+    private static final int MAGIC = 0x4D5A4956;
+    private static final byte VERSION = 1;
+    private static final int HEADER_SIZE = 4 + 1 + 4 + 8 + 4;
+    private static final int BUFFER_SIZE = 1 << 16;
+    // longest varint of a long
+    private static final int MAX_VARINT_SIZE = 10;
+    // shortest encoding of an interval (two single byte varints)
+    private static final int MIN_INTERVAL_SIZE = 2;
+
+    private IntervalFile() {}
+
+    /* writes intervals given in ascending order (e.g. MezzureEventHandler.getIntervals()); they are written to a
+     * temporary file next to the path first which then replaces the file so that a failed write keeps the previous
+     * file */
+    public static void write(Path path, Iterable<Interval> intervals) throws IOException {
+        Path absolute = path.toAbsolutePath();
+        Path temporary = Files.createTempFile(absolute.getParent(), absolute.getFileName().toString(), ".tmp");
+        try {
+            writeTo(temporary, intervals);
+            Files.move(temporary, absolute, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    private static void writeTo(Path path, Iterable<Interval> intervals) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+            CRC32 crc = new CRC32();
+            int count = 0;
+            long length = 0;
+            long lastEnd = -1;
+
+            // the header is written once the payload is known
+            channel.position(HEADER_SIZE);
+            for (Interval interval : intervals) {
+                long start = interval.start().center();
+                long end = interval.end().center();
+                if (start < 0 || start <= lastEnd) throw new IllegalArgumentException("intervals not sorted");
+
+                if (buffer.remaining() < 2 * MAX_VARINT_SIZE) length += drain(channel, buffer, crc);
+                VarInts.writeUnsignedLong(buffer, lastEnd < 0 ? start : start - lastEnd);
+                VarInts.writeUnsignedLong(buffer, end - start);
+                lastEnd = end;
+                count++;
+            }
+            length += drain(channel, buffer, crc);
+
+            buffer.putInt(MAGIC)
+                    .put(VERSION)
+                    .putInt(count)
+                    .putLong(length)
+                    .putInt((int) crc.getValue())
+                    .flip();
+            while (buffer.hasRemaining()) channel.write(buffer, buffer.position());
+            channel.force(false);
+        }
+    }
+
+    /* reads the intervals into a store that may be passed to MezzureEventHandler.addIntervals(IntervalStore) */
+    public static IntervalStore read(Path path) throws IOException {
+        return read(path, 0, Long.MAX_VALUE);
+    }
+
+    /* reads the intervals and verifies that they lie within [domainStart, domainEnd] */
+    public static IntervalStore read(Path path, long domainStart, long domainEnd) throws IOException {
+        if (domainStart > domainEnd) throw new IllegalArgumentException("bad domain");
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_SIZE) throw new IOException("not an interval file");
+            if (channel.size() > Integer.MAX_VALUE) throw new IOException("interval file too large");
+            // read onto the heap rather than mapped so that no mapping keeps the file open (e.g. to be replaced)
+            ByteBuffer file = ByteBuffer.allocate((int) channel.size());
+            while (file.hasRemaining())
+                if (channel.read(file) < 0) throw new IOException("truncated interval file");
+            file.flip();
+
+            if (file.getInt() != MAGIC) throw new IOException("not an interval file");
+            if (file.get() != VERSION) throw new IOException("unsupported interval file version");
+            int count = file.getInt();
+            long length = file.getLong();
+            int checksum = file.getInt();
+            if (length != file.remaining()) throw new IOException("truncated interval file");
+            // nothing is allocated for a count the payload cannot hold
+            if (count < 0 || count > length / MIN_INTERVAL_SIZE) throw new IOException("interval file corrupted");
+
+            CRC32 crc = new CRC32();
+            crc.update(file.duplicate());
+            if ((int) crc.getValue() != checksum) throw new IOException("interval file corrupted");
+
+            long[] starts = new long[count];
+            long[] ends = new long[count];
+            long lastEnd = 0;
+            try {
+                for (int i = 0; i < count; i++) {
+                    long gap = VarInts.readUnsignedLong(file);
+                    long intervalLength = VarInts.readUnsignedLong(file);
+                    // values beyond Long.MAX_VALUE read as negative; sums of non-negative values overflow to negative
+                    if (gap < 0 || intervalLength < 0) throw new IOException("interval out of range");
+                    if ((i > 0 && gap < 1) || intervalLength < 1) throw new IOException("intervals overlap");
+                    starts[i] = lastEnd + gap;
+                    ends[i] = lastEnd = starts[i] + intervalLength;
+                    if (starts[i] < 0 || ends[i] < 0) throw new IOException("interval out of range");
+                    if (starts[i] < domainStart || ends[i] > domainEnd) throw new IOException("interval outside the domain");
+                }
+            } catch (BufferUnderflowException e) {
+                throw new IOException("truncated interval file");
+            }
+            if (file.hasRemaining()) throw new IOException("trailing bytes in interval file");
+
+            IntervalStore store = new IntervalStore(count);
+            store.insertAll(starts, ends, count);
+            return store;
+        }
+    }
+
+    // writes the buffered bytes and returns their number
+    private static int drain(FileChannel channel, ByteBuffer buffer, CRC32 crc) throws IOException {
+        buffer.flip();
+        int length = buffer.remaining();
+        crc.update(buffer.duplicate());
+        while (buffer.hasRemaining()) channel.write(buffer);
+        buffer.clear();
+        return length;
+    }
+}
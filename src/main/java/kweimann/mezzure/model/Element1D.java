@@ -2,25 +2,25 @@ package kweimann.mezzure.model;
 
 public interface Element1D {
     /* returns new element moved n units right if n >= 0 or n units left if n < 0 */
-    Element1D move(int n);
+    Element1D move(long n);
 
     /* returns rounded down center of the element as X coordinate */
-    int center();
+    long center();
 
     /* returns length of the element */
-    int length();
+    long length();
 
     /* returns true if two elements overlap */
     default boolean overlaps(Element1D element) {
-        int thisCenter = this.center() * 2 + (this.length() % 2 == 0 ? 0 : 1);
-        int thatCenter = element.center() * 2 + (element.length() % 2 == 0 ? 0 : 1);
+        long thisCenter = this.center() * 2 + (this.length() % 2 == 0 ? 0 : 1);
+        long thatCenter = element.center() * 2 + (element.length() % 2 == 0 ? 0 : 1);
         return Math.abs(thatCenter - thisCenter) <= element.length() + this.length();
     }
 
     /* returns the smallest displacement between the most outer points of this element and another element */
-    default int displacement(Element1D element) {
-        int thisCenter = this.center() * 2 + (this.length() % 2 == 0 ? 0 : 1);
-        int thatCenter = element.center() * 2 + (element.length() % 2 == 0 ? 0 : 1);
+    default long displacement(Element1D element) {
+        long thisCenter = this.center() * 2 + (this.length() % 2 == 0 ? 0 : 1);
+        long thatCenter = element.center() * 2 + (element.length() % 2 == 0 ? 0 : 1);
         if (Math.abs(thatCenter - thisCenter) > element.length() + this.length()) {
             return thatCenter >= thisCenter
                     // this element lies left to another element
@@ -31,7 +31,7 @@ public interface Element1D {
     }
 
     /* returns the smallest distance between the most outer points of this element and another element */
-    default int distance(Element1D element) {
+    default long distance(Element1D element) {
         return Math.abs(displacement(element));
     }
 }
@@ -23,11 +23,11 @@ public final class Interval implements Element1D {
         return end;
     }
 
-    public Interval resize(int difference) {
+    public Interval resize(long difference) {
         return resize(-difference, difference);
     }
 
-    public Interval resize(int startDifference, int endDifference) {
+    public Interval resize(long startDifference, long endDifference) {
         Point start = this.start.move(startDifference);
         Point end = this.end.move(endDifference);
         if (start.center() >= end.center())
@@ -36,17 +36,17 @@ public final class Interval implements Element1D {
     }
 
     @Override
-    public int center() {
+    public long center() {
         return start.center() + length() / 2;
     }
 
     @Override
-    public int length() {
+    public long length() {
         return end.center() - start.center();
     }
 
     @Override
-    public Interval move(int n) {
+    public Interval move(long n) {
         return new Interval(start.move(n), end.move(n));
     }
 
@@ -0,0 +1,165 @@
+package kweimann.mezzure.model;
+
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/* sorted index of non-overlapping intervals answering neighbour and overlap queries in O(log n + k);
+ * intervals are kept in a packed store and materialized only when returned */
+public final class IntervalIndex implements Iterable<Interval> {
+
+    // since intervals do not overlap their ends are sorted as well
+    private final IntervalStore store = new IntervalStore();
+
+    public boolean add(Interval interval) {
+        return add(start(interval), end(interval));
+    }
+
+    public boolean add(long start, long end) {
+        if (store.indexOf(start) >= 0) return false;
+        store.insert(start, end);
+        return true;
+    }
+
+    /* adds intervals sorted by their start; the caller guarantees that they do not overlap any other interval */
+    public void addAll(List<Interval> sorted) {
+        long[] starts = new long[sorted.size()];
+        long[] ends = new long[sorted.size()];
+        for (int i = 0; i < sorted.size(); i++) {
+            starts[i] = start(sorted.get(i));
+            ends[i] = end(sorted.get(i));
+        }
+        store.insertAll(starts, ends, sorted.size());
+    }
+
+    /* adds the intervals of a store; the caller guarantees that they do not overlap any other interval */
+    public void addAll(IntervalStore sorted) {
+        store.insertAll(sorted);
+    }
+
+    public boolean remove(Interval interval) {
+        return remove(start(interval), end(interval));
+    }
+
+    public boolean remove(long start, long end) {
+        int slot = store.indexOf(start, end);
+        if (slot < 0) return false;
+        store.remove(slot);
+        return true;
+    }
+
+    /* removes the intervals of a store in a single pass over the index; returns the number of removed intervals */
+    public int removeAll(IntervalStore sorted) {
+        return store.removeAll(sorted);
+    }
+
+    /* replaces an interval shifting only the intervals in between the old and the new position */
+    public boolean replace(Interval removed, Interval added) {
+        return replace(start(removed), end(removed), start(added), end(added));
+    }
+
+    public boolean replace(long removedStart, long removedEnd, long addedStart, long addedEnd) {
+        int slot = store.indexOf(removedStart, removedEnd);
+        if (slot < 0) return false;
+        store.replace(slot, addedStart, addedEnd);
+        return true;
+    }
+
+    public boolean contains(Interval interval) {
+        return slot(interval) >= 0;
+    }
+
+    public int size() {
+        return store.size();
+    }
+
+    /* primitive access to the intervals for allocation sensitive callers */
+    public IntervalStore store() {
+        return store;
+    }
+
+    /* returns the first interval that overlaps the element or null */
+    public Interval overlapping(Element1D element) {
+        // the only candidate is the last interval starting at or before the element's end
+        int slot = store.floor(end(element));
+        return slot >= 0 && store.overlaps(slot, start(element), end(element)) ? store.get(slot) : null;
+    }
+
+    /* returns all intervals that lie at most `tolerance` units away from the element in ascending order */
+    public Iterable<Interval> near(Element1D element, long tolerance) {
+        return range(store.firstEndingAtOrAfter(start(element) - tolerance), store.floor(end(element) + tolerance) + 1);
+    }
+
+    /* returns all intervals ending at or after the point in ascending order */
+    public Iterable<Interval> tail(Point point) {
+        return range(store.firstEndingAtOrAfter(point.center()), store.size());
+    }
+
+    /* returns the overlapping interval whose center lies closest to the element's center or null */
+    public Interval closestOverlapping(Element1D element, Interval excluded) {
+        return get(store.closestOverlapping(start(element), end(element), slot(excluded)));
+    }
+
+    /* neighbour queries skip the excluded interval as if it was not part of the index */
+
+    /* returns the last interval starting at or before the point or null */
+    public Interval floor(Point point, Interval excluded) {
+        return get(store.lower(store.floor(point.center()), slot(excluded)));
+    }
+
+    /* returns the first interval starting after the point or null */
+    public Interval higher(Point point, Interval excluded) {
+        return get(store.higher(store.floor(point.center()) + 1, slot(excluded)));
+    }
+
+    /* returns the predecessor of the interval or null */
+    public Interval lower(Interval interval, Interval excluded) {
+        return get(store.lower(store.floor(start(interval) - 1), slot(excluded)));
+    }
+
+    /* returns the successor of the interval or null */
+    public Interval higher(Interval interval, Interval excluded) {
+        return get(store.higher(store.floor(start(interval)) + 1, slot(excluded)));
+    }
+
+    @Override
+    public Iterator<Interval> iterator() {
+        return range(0, store.size()).iterator();
+    }
+
+    private Iterable<Interval> range(int from, int to) {
+        return () -> new Iterator<Interval>() {
+            final int expectedModCount = store.modCount();
+            int slot = from;
+
+            @Override
+            public boolean hasNext() {
+                return slot < to;
+            }
+
+            @Override
+            public Interval next() {
+                if (store.modCount() != expectedModCount) throw new ConcurrentModificationException();
+                if (slot >= to) throw new NoSuchElementException();
+                return store.get(slot++);
+            }
+        };
+    }
+
+    private int slot(Interval interval) {
+        return interval == null ? -1 : store.indexOf(start(interval), end(interval));
+    }
+
+    private Interval get(int slot) {
+        return slot < 0 ? null : store.get(slot);
+    }
+
+    private static long start(Element1D element) {
+        return element.center() - element.length() / 2;
+    }
+
+    private static long end(Element1D element) {
+        return start(element) + element.length();
+    }
+}
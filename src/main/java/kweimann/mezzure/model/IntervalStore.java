@@ -0,0 +1,277 @@
+package kweimann.mezzure.model;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/* intervals sorted by their start and packed into primitive arrays; a slot is the position of an interval in that order.
+ * the store does not check for overlaps but overlap and neighbour queries assume that intervals do not overlap */
+public final class IntervalStore {
+    private static final int DEFAULT_CAPACITY = 16;
+
+    private long[] starts;
+    private long[] ends;
+    private int size;
+    // incremented on every change (including in-place replacements) so that iterators and views may fail fast
+    private int modCount;
+
+    public IntervalStore() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public IntervalStore(int capacity) {
+        this.starts = new long[Math.max(1, capacity)];
+        this.ends = new long[Math.max(1, capacity)];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public long start(int slot) {
+        checkSlot(slot);
+        return starts[slot];
+    }
+
+    public long end(int slot) {
+        checkSlot(slot);
+        return ends[slot];
+    }
+
+    /* returns rounded down center of the interval as X coordinate (see Interval) */
+    public long center(int slot) {
+        return start(slot) + length(slot) / 2;
+    }
+
+    public long length(int slot) {
+        checkSlot(slot);
+        return ends[slot] - starts[slot];
+    }
+
+    /* materializes the interval in the slot */
+    public Interval get(int slot) {
+        checkSlot(slot);
+        return new Interval(new Point(starts[slot]), new Point(ends[slot]));
+    }
+
+    /* returns the slot of the last interval starting at or before x or -1 */
+    public int floor(long x) {
+        int low = 0;
+        int high = size - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (starts[mid] <= x) low = mid + 1;
+            else high = mid - 1;
+        }
+        return high;
+    }
+
+    /* returns the slot of the first interval ending at or after x or size() if there is none */
+    public int firstEndingAtOrAfter(long x) {
+        // the interval starting before x may still reach beyond it
+        int slot = floor(x);
+        return slot >= 0 && ends[slot] >= x ? slot : slot + 1;
+    }
+
+    /* returns the slot of the overlapping interval whose center lies closest to the center of [start, end] or -1 */
+    public int closestOverlapping(long start, long end, int excludedSlot) {
+        long center = start + (end - start) / 2;
+
+        // centers are sorted so the closest centers on either side belong to the interval starting at or before
+        // the center, its predecessor or its successor
+        int floor = lower(floor(center), excludedSlot);
+        int closest = -1;
+        if (floor >= 0) {
+            closest = closer(closest, lower(floor - 1, excludedSlot), start, end);
+            closest = closer(closest, floor, start, end);
+        }
+        return closer(closest, higher(floor + 1, excludedSlot), start, end);
+    }
+
+    /* returns the slot or the next lower slot if the slot is excluded (or -1 if there is no such slot) */
+    public int lower(int slot, int excludedSlot) {
+        return slot >= 0 && slot == excludedSlot ? slot - 1 : slot;
+    }
+
+    /* returns the slot or the next higher slot if the slot is excluded (or -1 if there is no such slot) */
+    public int higher(int slot, int excludedSlot) {
+        if (slot == excludedSlot) slot++;
+        return slot < size ? slot : -1;
+    }
+
+    /* returns the slot of the interval starting at x or -1 */
+    public int indexOf(long start) {
+        int slot = floor(start);
+        return slot >= 0 && starts[slot] == start ? slot : -1;
+    }
+
+    /* returns the slot of the interval [start, end] or -1 */
+    public int indexOf(long start, long end) {
+        int slot = indexOf(start);
+        return slot >= 0 && ends[slot] == end ? slot : -1;
+    }
+
+    /* returns the slot of the inserted interval */
+    public int insert(long start, long end) {
+        checkBounds(start, end);
+        int slot = floor(start) + 1;
+        if (slot > 0 && starts[slot - 1] == start) throw new IllegalArgumentException("duplicate start");
+        ensureCapacity(size + 1);
+        System.arraycopy(starts, slot, starts, slot + 1, size - slot);
+        System.arraycopy(ends, slot, ends, slot + 1, size - slot);
+        starts[slot] = start;
+        ends[slot] = end;
+        size++;
+        modCount++;
+        return slot;
+    }
+
+    /* inserts n sorted intervals (none of which may share its start with a stored interval) in a single merge pass */
+    public void insertAll(long[] starts, long[] ends, int n) {
+        if (n == 0) return;
+        // all checks run before the first write so that a rejected batch leaves the store unchanged; stored starts
+        // are walked alongside the sorted batch from the last one at or before the first new start
+        int stored = Math.max(0, floor(starts[0]));
+        for (int i = 0; i < n; i++) {
+            checkBounds(starts[i], ends[i]);
+            if (i > 0 && starts[i - 1] >= starts[i]) throw new IllegalArgumentException("intervals not sorted");
+            while (stored < size && this.starts[stored] < starts[i]) stored++;
+            if (stored < size && this.starts[stored] == starts[i])
+                throw new IllegalArgumentException("duplicate start");
+        }
+        ensureCapacity(size + n);
+
+        // merge from the back so that no stored interval is overwritten before it has been moved
+        int i = size - 1;
+        int j = n - 1;
+        for (int slot = size + n - 1; j >= 0; slot--) {
+            if (i >= 0 && this.starts[i] > starts[j]) {
+                this.starts[slot] = this.starts[i];
+                this.ends[slot] = this.ends[i--];
+            } else {
+                this.starts[slot] = starts[j];
+                this.ends[slot] = ends[j--];
+            }
+        }
+        size += n;
+        modCount++;
+    }
+
+    /* inserts all intervals of another store (see insertAll above) */
+    public void insertAll(IntervalStore sorted) {
+        insertAll(sorted.starts, sorted.ends, sorted.size);
+    }
+
+    /* removes the intervals of another store stored with the very same bounds in a single pass; returns the number of
+     * removed intervals */
+    public int removeAll(IntervalStore sorted) {
+        if (sorted.size == 0) return 0;
+        // intervals before the first removed one stay where they are
+        int retained = Math.max(0, floor(sorted.starts[0]));
+        int j = 0;
+        for (int i = retained; i < size; i++) {
+            while (j < sorted.size && sorted.starts[j] < starts[i]) j++;
+            if (j < sorted.size && sorted.starts[j] == starts[i] && sorted.ends[j] == ends[i]) continue;
+            starts[retained] = starts[i];
+            ends[retained++] = ends[i];
+        }
+        int removed = size - retained;
+        size = retained;
+        if (removed > 0) modCount++;
+        return removed;
+    }
+
+    public void remove(int slot) {
+        checkSlot(slot);
+        System.arraycopy(starts, slot + 1, starts, slot, size - slot - 1);
+        System.arraycopy(ends, slot + 1, ends, slot, size - slot - 1);
+        size--;
+        modCount++;
+    }
+
+    /* replaces the interval in the slot and returns its new slot; only the slots in between are shifted */
+    public int replace(int slot, long start, long end) {
+        checkSlot(slot);
+        checkBounds(start, end);
+
+        int floor = floor(start);
+        if (floor >= 0 && floor != slot && starts[floor] == start) throw new IllegalArgumentException("duplicate start");
+
+        int target;
+        if (floor < slot) {
+            // shift intervals in between right
+            target = floor + 1;
+            System.arraycopy(starts, target, starts, target + 1, slot - target);
+            System.arraycopy(ends, target, ends, target + 1, slot - target);
+        } else {
+            // shift intervals in between left
+            target = floor;
+            System.arraycopy(starts, slot + 1, starts, slot, target - slot);
+            System.arraycopy(ends, slot + 1, ends, slot, target - slot);
+        }
+
+        starts[target] = start;
+        ends[target] = end;
+        modCount++;
+        return target;
+    }
+
+    /* moves the interval n units right if n >= 0 or n units left if n < 0 and returns its new slot */
+    public int move(int slot, long n) {
+        return replace(slot, start(slot) + n, end(slot) + n);
+    }
+
+    /* resizes the interval and returns its new slot */
+    public int resize(int slot, long startDifference, long endDifference) {
+        long start = start(slot) + startDifference;
+        long end = end(slot) + endDifference;
+        if (start >= end) throw new IllegalArgumentException("bad resize parameters");
+        return replace(slot, start, end);
+    }
+
+    /* returns true if the interval overlaps [start, end] (see Element1D) */
+    public boolean overlaps(int slot, long start, long end) {
+        checkSlot(slot);
+        return starts[slot] <= end && start <= ends[slot];
+    }
+
+    /* returns the smallest displacement between the most outer points of the interval and [start, end] (see Element1D) */
+    public long displacement(int slot, long start, long end) {
+        checkSlot(slot);
+        if (ends[slot] < start) return start - ends[slot];  // interval lies left to [start, end]
+        else if (end < starts[slot]) return end - starts[slot]; // interval lies right to [start, end]
+        else return 0;
+    }
+
+    public long distance(int slot, long start, long end) {
+        return Math.abs(displacement(slot, start, end));
+    }
+
+    // returns the candidate if it overlaps [start, end] and its center lies strictly closer than the closest one's
+    private int closer(int closest, int candidate, long start, long end) {
+        long center = start + (end - start) / 2;
+        return candidate >= 0 && overlaps(candidate, start, end)
+                && (closest < 0 || Math.abs(center(closest) - center) > Math.abs(center(candidate) - center))
+                ? candidate
+                : closest;
+    }
+
+    int modCount() {
+        return modCount;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > starts.length) {
+            int newCapacity = Math.max(capacity, starts.length + (starts.length >> 1));
+            starts = Arrays.copyOf(starts, newCapacity);
+            ends = Arrays.copyOf(ends, newCapacity);
+        }
+    }
+
+    private void checkSlot(int slot) {
+        if (slot < 0 || slot >= size) throw new NoSuchElementException();
+    }
+
+    private static void checkBounds(long start, long end) {
+        if (start >= end) throw new IllegalArgumentException("points overlap");
+    }
+}
@@ -0,0 +1,265 @@
+package kweimann.mezzure.model;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/* immutable set of intervals sorted by their start; every update returns a new set that shares all but O(log n)
+ * nodes with the previous one (path copying in an AVL tree) so that keeping every version is cheap. nodes hold the
+ * bounds as primitives and intervals are materialized only when they are read */
+public final class PersistentIntervalSet implements Iterable<Interval> {
+    private static final PersistentIntervalSet EMPTY = new PersistentIntervalSet(null);
+
+    private final Node root;
+
+    private PersistentIntervalSet(Node root) {
+        this.root = root;
+    }
+
+    public static PersistentIntervalSet empty() {
+        return EMPTY;
+    }
+
+    public int size() {
+        return size(root);
+    }
+
+    public boolean contains(Interval interval) {
+        return contains(start(interval), end(interval));
+    }
+
+    public boolean contains(long start, long end) {
+        Node node = find(root, start);
+        return node != null && node.end == end;
+    }
+
+    /* returns the last interval starting at or before x or null */
+    public Interval floor(long x) {
+        Node floor = null;
+        for (Node node = root; node != null; ) {
+            if (node.start <= x) {
+                floor = node;
+                node = node.right;
+            } else node = node.left;
+        }
+        return floor == null ? null : floor.interval();
+    }
+
+    /* returns the set with the interval added; intervals may not share their start */
+    public PersistentIntervalSet add(Interval interval) {
+        return add(start(interval), end(interval));
+    }
+
+    public PersistentIntervalSet add(long start, long end) {
+        return new PersistentIntervalSet(insert(root, start, end));
+    }
+
+    /* returns the set without the interval (or this set if it does not contain the interval) */
+    public PersistentIntervalSet remove(Interval interval) {
+        return remove(start(interval), end(interval));
+    }
+
+    public PersistentIntervalSet remove(long start, long end) {
+        Node root = delete(this.root, start, end);
+        return root == this.root ? this : new PersistentIntervalSet(root);
+    }
+
+    /* returns the set with all intervals of the store added; large batches are merged and rebuilt in O(n) instead */
+    public PersistentIntervalSet addAll(IntervalStore sorted) {
+        if (sorted.size() == 0) return this;
+        if (sorted.size() <= size() / 8) {
+            Node root = this.root;
+            for (int slot = 0; slot < sorted.size(); slot++) root = insert(root, sorted.start(slot), sorted.end(slot));
+            return new PersistentIntervalSet(root);
+        }
+
+        int n = size();
+        long[] starts = new long[n + sorted.size()];
+        long[] ends = new long[n + sorted.size()];
+        collect(root, starts, ends, sorted.size());
+
+        // merge the existing intervals (moved to the back) with the added ones from the front
+        int i = sorted.size();
+        int merged = 0;
+        for (int slot = 0; slot < sorted.size(); slot++) {
+            long start = sorted.start(slot);
+            while (i < starts.length && starts[i] < start) {
+                starts[merged] = starts[i];
+                ends[merged++] = ends[i++];
+            }
+            if (i < starts.length && starts[i] == start) throw new IllegalArgumentException("duplicate start");
+            starts[merged] = start;
+            ends[merged++] = sorted.end(slot);
+        }
+        // the remaining existing intervals are already in place
+        return new PersistentIntervalSet(build(starts, ends, 0, starts.length));
+    }
+
+    /* returns the set without the intervals of the store; large batches are filtered and rebuilt in O(n) instead */
+    public PersistentIntervalSet removeAll(IntervalStore sorted) {
+        if (sorted.size() == 0) return this;
+        if (sorted.size() <= size() / 8) {
+            Node root = this.root;
+            for (int slot = 0; slot < sorted.size(); slot++) root = delete(root, sorted.start(slot), sorted.end(slot));
+            return root == this.root ? this : new PersistentIntervalSet(root);
+        }
+
+        long[] starts = new long[size()];
+        long[] ends = new long[size()];
+        collect(root, starts, ends, 0);
+
+        int retained = 0;
+        int slot = 0;
+        for (int i = 0; i < starts.length; i++) {
+            while (slot < sorted.size() && sorted.start(slot) < starts[i]) slot++;
+            if (slot < sorted.size() && sorted.start(slot) == starts[i] && sorted.end(slot) == ends[i]) continue;
+            starts[retained] = starts[i];
+            ends[retained++] = ends[i];
+        }
+        return retained == starts.length ? this : new PersistentIntervalSet(build(starts, ends, 0, retained));
+    }
+
+    @Override
+    public Iterator<Interval> iterator() {
+        return new Iterator<Interval>() {
+            // path to the next node
+            final Deque<Node> path = new ArrayDeque<>();
+
+            {
+                descend(root);
+            }
+
+            @Override
+            public boolean hasNext() {
+                return !path.isEmpty();
+            }
+
+            @Override
+            public Interval next() {
+                if (path.isEmpty()) throw new NoSuchElementException();
+                Node node = path.pop();
+                descend(node.right);
+                return node.interval();
+            }
+
+            private void descend(Node node) {
+                for (; node != null; node = node.left) path.push(node);
+            }
+        };
+    }
+
+    private static Node find(Node node, long start) {
+        while (node != null && node.start != start)
+            node = start < node.start ? node.left : node.right;
+        return node;
+    }
+
+    private static Node insert(Node node, long start, long end) {
+        if (node == null) return new Node(null, start, end, null);
+        if (start < node.start) return balance(insert(node.left, start, end), node.start, node.end, node.right);
+        else if (start > node.start) return balance(node.left, node.start, node.end, insert(node.right, start, end));
+        else throw new IllegalArgumentException("duplicate start");
+    }
+
+    // returns the very same node if the interval is not part of its subtree so that nothing is copied
+    private static Node delete(Node node, long start, long end) {
+        if (node == null) return null;
+
+        if (start < node.start) {
+            Node left = delete(node.left, start, end);
+            return left == node.left ? node : balance(left, node.start, node.end, node.right);
+        } else if (start > node.start) {
+            Node right = delete(node.right, start, end);
+            return right == node.right ? node : balance(node.left, node.start, node.end, right);
+        }
+
+        if (node.end != end) return node;
+        if (node.left == null) return node.right;
+        if (node.right == null) return node.left;
+
+        Node successor = node.right;
+        while (successor.left != null) successor = successor.left;
+        return balance(node.left, successor.start, successor.end, deleteFirst(node.right));
+    }
+
+    private static Node deleteFirst(Node node) {
+        if (node.left == null) return node.right;
+        return balance(deleteFirst(node.left), node.start, node.end, node.right);
+    }
+
+    private static Node balance(Node left, long start, long end, Node right) {
+        if (height(left) > height(right) + 1) {
+            if (height(left.left) >= height(left.right))
+                return new Node(left.left, left.start, left.end, new Node(left.right, start, end, right));
+            Node pivot = left.right;
+            return new Node(
+                    new Node(left.left, left.start, left.end, pivot.left),
+                    pivot.start, pivot.end,
+                    new Node(pivot.right, start, end, right));
+        } else if (height(right) > height(left) + 1) {
+            if (height(right.right) >= height(right.left))
+                return new Node(new Node(left, start, end, right.left), right.start, right.end, right.right);
+            Node pivot = right.left;
+            return new Node(
+                    new Node(left, start, end, pivot.left),
+                    pivot.start, pivot.end,
+                    new Node(pivot.right, right.start, right.end, right.right));
+        }
+        return new Node(left, start, end, right);
+    }
+
+    // writes the bounds of the subtree in ascending order starting at index i and returns the index following them
+    private static int collect(Node node, long[] starts, long[] ends, int i) {
+        if (node == null) return i;
+        i = collect(node.left, starts, ends, i);
+        starts[i] = node.start;
+        ends[i++] = node.end;
+        return collect(node.right, starts, ends, i);
+    }
+
+    // builds a balanced tree of the sorted intervals [from, to)
+    private static Node build(long[] starts, long[] ends, int from, int to) {
+        if (from >= to) return null;
+        int mid = (from + to) >>> 1;
+        return new Node(build(starts, ends, from, mid), starts[mid], ends[mid], build(starts, ends, mid + 1, to));
+    }
+
+    private static int height(Node node) {
+        return node == null ? 0 : node.height;
+    }
+
+    private static int size(Node node) {
+        return node == null ? 0 : node.size;
+    }
+
+    private static long start(Interval interval) {
+        return interval.start().center();
+    }
+
+    private static long end(Interval interval) {
+        return interval.end().center();
+    }
+
+    private static final class Node {
+        final Node left;
+        final long start;
+        final long end;
+        final Node right;
+        final int height;
+        final int size;
+
+        Node(Node left, long start, long end, Node right) {
+            this.left = left;
+            this.start = start;
+            this.end = end;
+            this.right = right;
+            this.height = Math.max(height(left), height(right)) + 1;
+            this.size = size(left) + size(right) + 1;
+        }
+
+        Interval interval() {
+            return new Interval(new Point(start), new Point(end));
+        }
+    }
+}
@@ -1,35 +1,31 @@
 package kweimann.mezzure.model;
 
-import java.util.Comparator;
-
 public final class Point implements Element1D, Comparable<Point> {
 
-    private final int x;
+    private final long x;
 
-    public Point(int x) {
+    public Point(long x) {
         this.x = x;
     }
 
     @Override
-    public int center() {
+    public long center() {
         return x;
     }
 
     @Override
-    public int length() {
+    public long length() {
         return 0;
     }
 
     @Override
-    public Point move(int n) {
+    public Point move(long n) {
         return new Point(x + n);
     }
 
     @Override
     public int compareTo(Point that) {
-        return Comparator
-                .comparingInt(Point::center)
-                .compare(this, that);
+        return Long.compare(x, that.x);
     }
 
     @Override
@@ -44,6 +40,6 @@ public final class Point implements Element1D, Comparable<Point> {
 
     @Override
     public int hashCode() {
-        return x;
+        return Long.hashCode(x);
     }
 }
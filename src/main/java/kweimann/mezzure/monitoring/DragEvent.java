@@ -0,0 +1,54 @@
+package kweimann.mezzure.monitoring;
+
+import jdk.jfr.*;
+
+/* flight recorder event of DragTrace: a whole drag from pressing the mouse button until releasing it */
+@Name("kweimann.mezzure.Drag")
+@Label("Drag")
+@Category({ "Mezzure", "Input" })
+@Enabled(false)
+@StackTrace(false)
+final class DragEvent extends Event implements DragTrace {
+
+    // shared while the event is disabled; updated() and finish() leave it untouched
+    private static final DragEvent DISABLED = new DragEvent();
+
+    @Label("Kind")
+    @Description("create, move or resize")
+    String kind;
+
+    @Label("Updates")
+    @Description("Number of drag events that changed the interval")
+    int updates;
+
+    @Label("Committed")
+    @Description("Whether the drag changed the intervals")
+    boolean committed;
+
+    @Label("Intervals")
+    int intervals;
+
+    static DragTrace start(String kind) {
+        if (!DISABLED.isEnabled()) return DISABLED;
+        DragEvent trace = new DragEvent();
+        trace.kind = kind;
+        trace.begin();
+        return trace;
+    }
+
+    @Override
+    public void updated() {
+        if (this != DISABLED) updates++;
+    }
+
+    @Override
+    public void finish(boolean committed, int intervals) {
+        if (this == DISABLED) return;
+        end();
+        if (shouldCommit()) {
+            this.committed = committed;
+            this.intervals = intervals;
+            commit();
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package kweimann.mezzure.monitoring;
+
+/* a whole drag from pressing the mouse button until releasing it; recorded as a flight recorder event (DragEvent) if
+ * the JDK provides jdk.jfr, otherwise nothing is recorded */
+public interface DragTrace {
+
+    // records nothing
+    DragTrace NONE = new DragTrace() {
+        @Override
+        public void updated() {
+        }
+
+        @Override
+        public void finish(boolean committed, int intervals) {
+        }
+    };
+
+    static DragTrace start(String kind) {
+        return JfrSupport.AVAILABLE ? DragEvent.start(kind) : NONE;
+    }
+
+    void updated();
+
+    void finish(boolean committed, int intervals);
+}
@@ -0,0 +1,44 @@
+package kweimann.mezzure.monitoring;
+
+import jdk.jfr.*;
+
+/* flight recorder event of DragUpdateTrace: a single drag event: constraining the interval and replacing it (including its repaint and gap labels) */
+@Name("kweimann.mezzure.DragUpdate")
+@Label("Drag Update")
+@Category({ "Mezzure", "Input" })
+@Enabled(false)
+@StackTrace(false)
+final class DragUpdateEvent extends Event implements DragUpdateTrace {
+
+    // shared by all drag updates while the event is disabled
+    private static final DragUpdateEvent DISABLED = new DragUpdateEvent();
+
+    @Label("Position")
+    long position;
+
+    @Label("Changed")
+    @Description("Whether the interval changed")
+    boolean changed;
+
+    @Label("Intervals")
+    int intervals;
+
+    static DragUpdateTrace start() {
+        if (!DISABLED.isEnabled()) return DISABLED;
+        DragUpdateEvent trace = new DragUpdateEvent();
+        trace.begin();
+        return trace;
+    }
+
+    @Override
+    public void finish(long position, boolean changed, int intervals) {
+        if (this == DISABLED) return;
+        end();
+        if (shouldCommit()) {
+            this.position = position;
+            this.changed = changed;
+            this.intervals = intervals;
+            commit();
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package kweimann.mezzure.monitoring;
+
+/* a single drag event: constraining the interval and replacing it (including its repaint and gap labels); recorded as
+ * a flight recorder event (DragUpdateEvent) if the JDK provides jdk.jfr, otherwise nothing is recorded */
+public interface DragUpdateTrace {
+
+    // records nothing
+    DragUpdateTrace NONE = new DragUpdateTrace() {
+        @Override
+        public void finish(long position, boolean changed, int intervals) {
+        }
+    };
+
+    static DragUpdateTrace start() {
+        return JfrSupport.AVAILABLE ? DragUpdateEvent.start() : NONE;
+    }
+
+    void finish(long position, boolean changed, int intervals);
+}
@@ -0,0 +1,39 @@
+package kweimann.mezzure.monitoring;
+
+import jdk.jfr.*;
+
+/* flight recorder event of HandleTrace: MezzureEventHandler.handle for a single mouse event */
+@Name("kweimann.mezzure.Handle")
+@Label("Handle Mouse Event")
+@Category({ "Mezzure", "Input" })
+@Enabled(false)
+@StackTrace(false)
+final class HandleEvent extends Event implements HandleTrace {
+
+    // returned while the event is disabled so that handling mouse events does not allocate
+    private static final HandleEvent DISABLED = new HandleEvent();
+
+    @Label("Event Type")
+    String eventType;
+
+    @Label("Intervals")
+    int intervals;
+
+    static HandleTrace start() {
+        if (!DISABLED.isEnabled()) return DISABLED;
+        HandleEvent trace = new HandleEvent();
+        trace.begin();
+        return trace;
+    }
+
+    @Override
+    public void finish(String eventType, int intervals) {
+        if (this == DISABLED) return;
+        end();
+        if (shouldCommit()) {
+            this.eventType = eventType;
+            this.intervals = intervals;
+            commit();
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package kweimann.mezzure.monitoring;
+
+/* MezzureEventHandler.handle for a single mouse event; recorded as a flight recorder event (HandleEvent) if the JDK
+ * provides jdk.jfr, otherwise nothing is recorded */
+public interface HandleTrace {
+
+    // records nothing
+    HandleTrace NONE = new HandleTrace() {
+        @Override
+        public void finish(String eventType, int intervals) {
+        }
+    };
+
+    static HandleTrace start() {
+        return JfrSupport.AVAILABLE ? HandleEvent.start() : NONE;
+    }
+
+    void finish(String eventType, int intervals);
+}
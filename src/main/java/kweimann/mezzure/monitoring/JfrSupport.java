@@ -0,0 +1,18 @@
+package kweimann.mezzure.monitoring;
+
+/* whether the JDK provides the flight recorder API (jdk.jfr); JDK 8 builds before 8u262 do not, so the traces only
+ * load their events if it is available */
+final class JfrSupport {
+    static final boolean AVAILABLE = isAvailable();
+
+    private JfrSupport() {}
+
+    private static boolean isAvailable() {
+        try {
+            Class.forName("jdk.jfr.Event", false, JfrSupport.class.getClassLoader());
+            return true;
+        } catch (ClassNotFoundException | LinkageError e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package kweimann.mezzure.monitoring;
+
+import jdk.jfr.*;
+
+/* flight recorder event of LabelTrace: relabeling the gaps around a replaced interval */
+@Name("kweimann.mezzure.GapLabels")
+@Label("Update Gap Labels")
+@Category({ "Mezzure", "Rendering" })
+@Enabled(false)
+@StackTrace(false)
+final class LabelEvent extends Event implements LabelTrace {
+
+    // shared while the event is disabled
+    private static final LabelEvent DISABLED = new LabelEvent();
+
+    @Label("Gaps")
+    @Description("Number of labeled gaps")
+    int gaps;
+
+    static LabelTrace start() {
+        if (!DISABLED.isEnabled()) return DISABLED;
+        LabelEvent trace = new LabelEvent();
+        trace.begin();
+        return trace;
+    }
+
+    @Override
+    public void finish(int gaps) {
+        if (this == DISABLED) return;
+        end();
+        if (shouldCommit()) {
+            this.gaps = gaps;
+            commit();
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package kweimann.mezzure.monitoring;
+
+/* relabeling the gaps around a replaced interval; recorded as a flight recorder event (LabelEvent) if the JDK provides
+ * jdk.jfr, otherwise nothing is recorded */
+public interface LabelTrace {
+
+    // records nothing
+    LabelTrace NONE = new LabelTrace() {
+        @Override
+        public void finish(int gaps) {
+        }
+    };
+
+    static LabelTrace start() {
+        return JfrSupport.AVAILABLE ? LabelEvent.start() : NONE;
+    }
+
+    void finish(int gaps);
+}
@@ -0,0 +1,71 @@
+package kweimann.mezzure.monitoring;
+
+import java.beans.ConstructorProperties;
+
+/* percentiles of a latency histogram in microseconds as shown by JMX clients */
+public final class LatencySummary {
+
+    private final long count;
+    private final double mean;
+    private final double p50;
+    private final double p90;
+    private final double p99;
+    private final double p999;
+    private final double max;
+
+    @ConstructorProperties({ "count", "mean", "p50", "p90", "p99", "p999", "max" })
+    public LatencySummary(long count, double mean, double p50, double p90, double p99, double p999, double max) {
+        this.count = count;
+        this.mean = mean;
+        this.p50 = p50;
+        this.p90 = p90;
+        this.p99 = p99;
+        this.p999 = p999;
+        this.max = max;
+    }
+
+    static LatencySummary of(LatencyHistogram histogram) {
+        return new LatencySummary(
+                histogram.count(),
+                histogram.mean() / 1e3,
+                histogram.percentile(0.5) / 1e3,
+                histogram.percentile(0.9) / 1e3,
+                histogram.percentile(0.99) / 1e3,
+                histogram.percentile(0.999) / 1e3,
+                histogram.max() / 1e3);
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public double getMean() {
+        return mean;
+    }
+
+    public double getP50() {
+        return p50;
+    }
+
+    public double getP90() {
+        return p90;
+    }
+
+    public double getP99() {
+        return p99;
+    }
+
+    public double getP999() {
+        return p999;
+    }
+
+    public double getMax() {
+        return max;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("count: %d, mean: %.1f, p50: %.1f, p90: %.1f, p99: %.1f, p99.9: %.1f, max: %.1f (us)",
+                count, mean, p50, p90, p99, p999, max);
+    }
+}
@@ -0,0 +1,35 @@
+package kweimann.mezzure.monitoring;
+
+/* management interface of MezzureMetrics; latencies of MezzureEventHandler.handle are reported per event type */
+public interface MezzureMXBean {
+
+    LatencySummary getPressLatency();
+
+    LatencySummary getDragLatency();
+
+    LatencySummary getReleaseLatency();
+
+    LatencySummary getClickLatency();
+
+    LatencySummary getMoveLatency();
+
+    long getDrawCount();
+
+    long getClearCount();
+
+    long getAddTextCount();
+
+    long getClearTextCount();
+
+    /* number of intervals held by the event handler */
+    int getIntervalCount();
+
+    /* number of labels held by the drawing context (including those of hidden sections) */
+    int getLabelCount();
+
+    /* number of nodes (canvas tiles) below the Mezzure pane */
+    int getNodeCount();
+
+    /* drops all recorded latencies and counts */
+    void reset();
+}
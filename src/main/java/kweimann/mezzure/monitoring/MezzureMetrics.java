@@ -0,0 +1,170 @@
+package kweimann.mezzure.monitoring;
+
+import javafx.event.EventType;
+import javafx.scene.input.MouseEvent;
+
+import javax.management.*;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntSupplier;
+
+/* runtime metrics of an event handler and its drawing context (see MezzureEventHandler.setMetrics and
+ * MezzureDrawingContext.setMetrics) that may be published as an MXBean. recording is lock free and allocation free.
+ * the sizes are read from the JMX thread without synchronization so they may be slightly out of date */
+public final class MezzureMetrics implements MezzureMXBean {
+    public static final String DOMAIN = "kweimann.mezzure";
+
+    private final LatencyHistogram press = new LatencyHistogram();
+    private final LatencyHistogram drag = new LatencyHistogram();
+    private final LatencyHistogram release = new LatencyHistogram();
+    private final LatencyHistogram click = new LatencyHistogram();
+    private final LatencyHistogram move = new LatencyHistogram();
+
+    private final LongAdder draws = new LongAdder();
+    private final LongAdder clears = new LongAdder();
+    private final LongAdder addTexts = new LongAdder();
+    private final LongAdder clearTexts = new LongAdder();
+
+    private volatile IntSupplier intervalCount = () -> 0;
+    private volatile IntSupplier labelCount = () -> 0;
+    private volatile IntSupplier nodeCount = () -> 0;
+
+    private ObjectName name;
+
+    /* publishes the metrics on the platform MBean server as kweimann.mezzure:type=Mezzure,name=<name> */
+    public synchronized ObjectName register(String name) throws JMException {
+        if (this.name != null) throw new IllegalStateException("already registered");
+        ObjectName objectName = new ObjectName(DOMAIN + ":type=Mezzure,name=" + ObjectName.quote(name));
+        ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName);
+        return this.name = objectName;
+    }
+
+    public synchronized void unregister() throws JMException {
+        if (name == null) return;
+        ManagementFactory.getPlatformMBeanServer().unregisterMBean(name);
+        name = null;
+    }
+
+    /* latencies of MezzureEventHandler.handle for the event type */
+    public LatencyHistogram histogram(EventType<? extends MouseEvent> type) {
+        if (type == MouseEvent.MOUSE_PRESSED) return press;
+        else if (type == MouseEvent.MOUSE_DRAGGED) return drag;
+        else if (type == MouseEvent.MOUSE_RELEASED) return release;
+        else if (type == MouseEvent.MOUSE_CLICKED) return click;
+        else return move;
+    }
+
+    public void recordHandle(EventType<? extends MouseEvent> type, long nanos) {
+        histogram(type).record(nanos);
+    }
+
+    public void recordDraw() {
+        draws.increment();
+    }
+
+    public void recordClear() {
+        clears.increment();
+    }
+
+    public void recordAddText() {
+        addTexts.increment();
+    }
+
+    public void recordClearText() {
+        clearTexts.increment();
+    }
+
+    public void setIntervalCount(IntSupplier intervalCount) {
+        this.intervalCount = intervalCount;
+    }
+
+    public void setLabelCount(IntSupplier labelCount) {
+        this.labelCount = labelCount;
+    }
+
+    public void setNodeCount(IntSupplier nodeCount) {
+        this.nodeCount = nodeCount;
+    }
+
+    @Override
+    public LatencySummary getPressLatency() {
+        return LatencySummary.of(press);
+    }
+
+    @Override
+    public LatencySummary getDragLatency() {
+        return LatencySummary.of(drag);
+    }
+
+    @Override
+    public LatencySummary getReleaseLatency() {
+        return LatencySummary.of(release);
+    }
+
+    @Override
+    public LatencySummary getClickLatency() {
+        return LatencySummary.of(click);
+    }
+
+    @Override
+    public LatencySummary getMoveLatency() {
+        return LatencySummary.of(move);
+    }
+
+    @Override
+    public long getDrawCount() {
+        return draws.sum();
+    }
+
+    @Override
+    public long getClearCount() {
+        return clears.sum();
+    }
+
+    @Override
+    public long getAddTextCount() {
+        return addTexts.sum();
+    }
+
+    @Override
+    public long getClearTextCount() {
+        return clearTexts.sum();
+    }
+
+    @Override
+    public int getIntervalCount() {
+        return intervalCount.getAsInt();
+    }
+
+    @Override
+    public int getLabelCount() {
+        return labelCount.getAsInt();
+    }
+
+    @Override
+    public int getNodeCount() {
+        return nodeCount.getAsInt();
+    }
+
+    @Override
+    public void reset() {
+        press.reset();
+        drag.reset();
+        release.reset();
+        click.reset();
+        move.reset();
+        draws.reset();
+        clears.reset();
+        addTexts.reset();
+        clearTexts.reset();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("press: %s%ndrag: %s%nrelease: %s%nclick: %s%nmove: %s%n"
+                        + "draw: %d, clear: %d, addText: %d, clearText: %d, intervals: %d, labels: %d, nodes: %d",
+                getPressLatency(), getDragLatency(), getReleaseLatency(), getClickLatency(), getMoveLatency(),
+                getDrawCount(), getClearCount(), getAddTextCount(), getClearTextCount(),
+                getIntervalCount(), getLabelCount(), getNodeCount());
+    }
+}
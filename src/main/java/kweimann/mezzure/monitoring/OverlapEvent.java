@@ -0,0 +1,40 @@
+package kweimann.mezzure.monitoring;
+
+import jdk.jfr.*;
+
+/* flight recorder event of OverlapTrace: constraining a moved interval so that it does not overlap any other interval */
+@Name("kweimann.mezzure.Overlap")
+@Label("Adjust On Overlap")
+@Category({ "Mezzure", "Input" })
+@Enabled(false)
+@StackTrace(false)
+final class OverlapEvent extends Event implements OverlapTrace {
+
+    // shared while the event is disabled so that moving an interval does not allocate
+    private static final OverlapEvent DISABLED = new OverlapEvent();
+
+    @Label("Adjusted")
+    @Description("Whether an overlap moved the interval away from the requested position")
+    boolean adjusted;
+
+    @Label("Intervals")
+    int intervals;
+
+    static OverlapTrace start() {
+        if (!DISABLED.isEnabled()) return DISABLED;
+        OverlapEvent trace = new OverlapEvent();
+        trace.begin();
+        return trace;
+    }
+
+    @Override
+    public void finish(boolean adjusted, int intervals) {
+        if (this == DISABLED) return;
+        end();
+        if (shouldCommit()) {
+            this.adjusted = adjusted;
+            this.intervals = intervals;
+            commit();
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package kweimann.mezzure.monitoring;
+
+/* constraining a moved interval so that it does not overlap any other interval; recorded as a flight recorder event
+ * (OverlapEvent) if the JDK provides jdk.jfr, otherwise nothing is recorded */
+public interface OverlapTrace {
+
+    // records nothing
+    OverlapTrace NONE = new OverlapTrace() {
+        @Override
+        public void finish(boolean adjusted, int intervals) {
+        }
+    };
+
+    static OverlapTrace start() {
+        return JfrSupport.AVAILABLE ? OverlapEvent.start() : NONE;
+    }
+
+    void finish(boolean adjusted, int intervals);
+}
@@ -0,0 +1,40 @@
+package kweimann.mezzure.monitoring;
+
+import jdk.jfr.*;
+
+/* flight recorder event of PaintTrace: filling and clearing rectangles on the canvas tiles */
+@Name("kweimann.mezzure.Paint")
+@Label("Paint")
+@Category({ "Mezzure", "Rendering" })
+@Enabled(false)
+@StackTrace(false)
+final class PaintEvent extends Event implements PaintTrace {
+
+    // shared while the event is disabled
+    private static final PaintEvent DISABLED = new PaintEvent();
+
+    @Label("Operation")
+    String operation;
+
+    @Label("Rectangles")
+    @Description("Number of rectangles filled or cleared")
+    int rectangles;
+
+    static PaintTrace start() {
+        if (!DISABLED.isEnabled()) return DISABLED;
+        PaintEvent trace = new PaintEvent();
+        trace.begin();
+        return trace;
+    }
+
+    @Override
+    public void finish(String operation, int rectangles) {
+        if (this == DISABLED) return;
+        end();
+        if (shouldCommit()) {
+            this.operation = operation;
+            this.rectangles = rectangles;
+            commit();
+        }
+    }
+}
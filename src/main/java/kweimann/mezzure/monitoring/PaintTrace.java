@@ -0,0 +1,19 @@
+package kweimann.mezzure.monitoring;
+
+/* filling and clearing rectangles on the canvas tiles; recorded as a flight recorder event (PaintEvent) if the JDK
+ * provides jdk.jfr, otherwise nothing is recorded */
+public interface PaintTrace {
+
+    // records nothing
+    PaintTrace NONE = new PaintTrace() {
+        @Override
+        public void finish(String operation, int rectangles) {
+        }
+    };
+
+    static PaintTrace start() {
+        return JfrSupport.AVAILABLE ? PaintEvent.start() : NONE;
+    }
+
+    void finish(String operation, int rectangles);
+}
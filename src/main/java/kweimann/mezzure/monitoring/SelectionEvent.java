@@ -0,0 +1,49 @@
+package kweimann.mezzure.monitoring;
+
+import jdk.jfr.*;
+
+/* flight recorder event of SelectionTrace: hit-testing the intervals around a position */
+@Name("kweimann.mezzure.Selection")
+@Label("Hit-Test")
+@Category({ "Mezzure", "Input" })
+@Enabled(false)
+@StackTrace(false)
+final class SelectionEvent extends Event implements SelectionTrace {
+
+    // shared by all hit-tests while the event is disabled (hovering hit-tests on every mouse move)
+    private static final SelectionEvent DISABLED = new SelectionEvent();
+
+    @Label("Position")
+    long position;
+
+    @Label("Candidates")
+    @Description("Number of intervals within the tolerance")
+    int candidates;
+
+    @Label("Selected")
+    @Description("START, END, INTERVAL or NONE")
+    String selected;
+
+    @Label("Intervals")
+    int intervals;
+
+    static SelectionTrace start() {
+        if (!DISABLED.isEnabled()) return DISABLED;
+        SelectionEvent trace = new SelectionEvent();
+        trace.begin();
+        return trace;
+    }
+
+    @Override
+    public void finish(long position, int candidates, String selected, int intervals) {
+        if (this == DISABLED) return;
+        end();
+        if (shouldCommit()) {
+            this.position = position;
+            this.candidates = candidates;
+            this.selected = selected;
+            this.intervals = intervals;
+            commit();
+        }
+    }
+}
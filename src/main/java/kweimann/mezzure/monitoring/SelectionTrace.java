@@ -0,0 +1,19 @@
+package kweimann.mezzure.monitoring;
+
+/* hit-testing the intervals around a position; recorded as a flight recorder event (SelectionEvent) if the JDK
+ * provides jdk.jfr, otherwise nothing is recorded */
+public interface SelectionTrace {
+
+    // records nothing
+    SelectionTrace NONE = new SelectionTrace() {
+        @Override
+        public void finish(long position, int candidates, String selected, int intervals) {
+        }
+    };
+
+    static SelectionTrace start() {
+        return JfrSupport.AVAILABLE ? SelectionEvent.start() : NONE;
+    }
+
+    void finish(long position, int candidates, String selected, int intervals);
+}
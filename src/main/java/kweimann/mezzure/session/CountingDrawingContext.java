@@ -0,0 +1,136 @@
+package kweimann.mezzure.session;
+
+import javafx.scene.Cursor;
+import kweimann.mezzure.model.Element1D;
+import kweimann.mezzure.model.Point;
+import kweimann.mezzure.view.DrawingContext;
+import kweimann.mezzure.view.MezzureLayout;
+import kweimann.mezzure.view.ViewTransform;
+
+/* drawing context that maps positions like MezzureDrawingContext but only counts drawing calls */
+public final class CountingDrawingContext implements DrawingContext {
+
+    private final MezzureLayout layout;
+    private final Point start;
+    private final Point end;
+    private ViewTransform transform;
+
+    private long addTextCount;
+    private long clearTextCount;
+    private long drawCount;
+    private long clearCount;
+    private long cursorCount;
+    private long transformCount;
+
+    public CountingDrawingContext(MezzureLayout layout) {
+        this.layout = layout;
+        this.start = new Point(layout.configuration().domainStart());
+        this.end = new Point(layout.configuration().domainEnd());
+        this.transform = layout.configuration().transform();
+    }
+
+    /* maps positions through the transform from now on like Mezzure.setTransform */
+    public void setTransform(ViewTransform transform) {
+        this.transform = transform;
+        transformCount++;
+    }
+
+    @Override
+    public void addText(Element1D element) {
+        addTextCount++;
+    }
+
+    @Override
+    public void clearText(Element1D element) {
+        clearTextCount++;
+    }
+
+    @Override
+    public void draw(Element1D element) {
+        drawCount++;
+    }
+
+    @Override
+    public void clear(Element1D element) {
+        clearCount++;
+    }
+
+    @Override
+    public void addText(long start, long end) {
+        addTextCount++;
+    }
+
+    @Override
+    public void clearText(long start, long end) {
+        clearTextCount++;
+    }
+
+    @Override
+    public void drawInterval(long start, long end) {
+        drawCount++;
+    }
+
+    @Override
+    public void clearInterval(long start, long end) {
+        clearCount++;
+    }
+
+    @Override
+    public void drawPoint(long x) {
+        drawCount++;
+    }
+
+    @Override
+    public void clearPoint(long x) {
+        clearCount++;
+    }
+
+    @Override
+    public void setCursor(Cursor cursor) {
+        cursorCount++;
+    }
+
+    @Override
+    public long getX(int canvasX, int canvasY, boolean fitToSection) {
+        return layout.getDomainX(canvasX, canvasY, fitToSection, transform);
+    }
+
+    @Override
+    public long getLength(int pixels) {
+        return transform.toLength(pixels);
+    }
+
+    @Override
+    public Point getStart() {
+        return start;
+    }
+
+    @Override
+    public Point getEnd() {
+        return end;
+    }
+
+    public long addTextCount() {
+        return addTextCount;
+    }
+
+    public long clearTextCount() {
+        return clearTextCount;
+    }
+
+    public long drawCount() {
+        return drawCount;
+    }
+
+    public long clearCount() {
+        return clearCount;
+    }
+
+    public long cursorCount() {
+        return cursorCount;
+    }
+
+    public long transformCount() {
+        return transformCount;
+    }
+}
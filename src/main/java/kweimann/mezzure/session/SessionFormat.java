@@ -0,0 +1,46 @@
+package kweimann.mezzure.session;
+
+import javafx.event.EventType;
+import javafx.scene.input.MouseEvent;
+
+import java.util.Arrays;
+import java.util.List;
+
+/* header: magic, version, configuration (width, height, section width, section height, section start, offset Y,
+ *         distance between sections, domain start, domain end, transform start, units per pixel as a double),
+ *         number of intervals followed by (start - previous end, length) per interval in domain coordinates;
+ *         the transform is the one the configuration starts with
+ * events: type, microseconds since previous event, then
+ *         delta X, delta Y, click count for mouse events or
+ *         transform start, units per pixel as a double for TRANSFORM (the view has been zoomed or scrolled) or
+ *         nothing for UNDO and REDO or
+ *         number of intervals followed by (start - previous end, length) per interval for ADD (a bulk add of
+ *         intervals not drawn by the user, e.g. detected regions) or
+ *         whether snapping is on, then the number of features followed by (position - previous position) per
+ *         feature for SNAPPING */
+final class SessionFormat {
+    static final int MAGIC = 0x4D5A5353;
+    static final int VERSION = 4;
+
+    // types of events other than mouse events; mouse events take the types below them
+    static final int TRANSFORM = 0x7F;
+    static final int UNDO = 0x7E;
+    static final int REDO = 0x7D;
+    static final int ADD = 0x7C;
+    static final int SNAPPING = 0x7B;
+
+    // an event's type is stored as its index
+    static final List<EventType<MouseEvent>> EVENT_TYPES = Arrays.asList(
+            MouseEvent.MOUSE_PRESSED,
+            MouseEvent.MOUSE_RELEASED,
+            MouseEvent.MOUSE_CLICKED,
+            MouseEvent.MOUSE_DRAGGED,
+            MouseEvent.MOUSE_MOVED,
+            MouseEvent.MOUSE_ENTERED,
+            MouseEvent.MOUSE_EXITED,
+            MouseEvent.MOUSE_ENTERED_TARGET,
+            MouseEvent.MOUSE_EXITED_TARGET,
+            MouseEvent.DRAG_DETECTED);
+
+    private SessionFormat() {}
+}
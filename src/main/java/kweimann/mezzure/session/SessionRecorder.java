@@ -0,0 +1,170 @@
+package kweimann.mezzure.session;
+
+import javafx.event.EventHandler;
+import javafx.scene.input.MouseEvent;
+import kweimann.mezzure.model.Interval;
+import kweimann.mezzure.model.IntervalStore;
+import kweimann.mezzure.util.FeatureIndex;
+import kweimann.mezzure.view.MezzureConfiguration;
+import kweimann.mezzure.view.ViewTransform;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static kweimann.mezzure.util.VarInts.writeSigned;
+import static kweimann.mezzure.util.VarInts.writeSignedLong;
+import static kweimann.mezzure.util.VarInts.writeUnsigned;
+import static kweimann.mezzure.util.VarInts.writeUnsignedLong;
+
+/* records mouse events of a Mezzure session so that SessionReplayer may feed them to MezzureEventHandler again;
+ * register the recorder on the same node as the handler and pass it every transform shown through
+ * Mezzure.setTransform since mouse events are recorded in canvas coordinates. changes made to the handler other than
+ * through mouse events (undo, redo, bulk adds and snapping) must be passed to the recorder as well. batches submitted
+ * through submitAdd / submitRemove cannot be recorded */
+public final class SessionRecorder implements EventHandler<MouseEvent>, Closeable {
+
+    private final DataOutputStream out;
+
+    private long lastTimestamp;
+    private int lastX;
+    private int lastY;
+
+    /* `intervals` are the intervals present when the recording starts */
+    public SessionRecorder(OutputStream out, MezzureConfiguration configuration, Iterable<Interval> intervals) throws IOException {
+        this.out = new DataOutputStream(new BufferedOutputStream(out));
+        writeHeader(configuration, intervals);
+        this.lastTimestamp = System.nanoTime();
+    }
+
+    public static SessionRecorder create(Path path, MezzureConfiguration configuration, Iterable<Interval> intervals) throws IOException {
+        return new SessionRecorder(Files.newOutputStream(path), configuration, intervals);
+    }
+
+    @Override
+    public void handle(MouseEvent event) {
+        int type = SessionFormat.EVENT_TYPES.indexOf(event.getEventType());
+        if (type < 0) return;
+
+        int x = (int) event.getX();
+        int y = (int) event.getY();
+
+        try {
+            writeEvent(type);
+            writeSigned(out, x - lastX);
+            writeSigned(out, y - lastY);
+            writeUnsigned(out, event.getClickCount());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        lastX = x;
+        lastY = y;
+    }
+
+    /* records that the view shows the domain through the transform from now on (e.g. after zooming or scrolling) */
+    public void recordTransform(ViewTransform transform) {
+        try {
+            writeEvent(SessionFormat.TRANSFORM);
+            writeSignedLong(out, transform.start());
+            out.writeDouble(transform.unitsPerPixel());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /* records that MezzureEventHandler.undo() reverted a change */
+    public void recordUndo() {
+        try {
+            writeEvent(SessionFormat.UNDO);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /* records that MezzureEventHandler.redo() applied a change again */
+    public void recordRedo() {
+        try {
+            writeEvent(SessionFormat.REDO);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /* records that the sorted intervals have been passed to MezzureEventHandler.addIntervals(IntervalStore) (e.g.
+     * detected regions) */
+    public void recordAdd(IntervalStore sorted) {
+        try {
+            writeEvent(SessionFormat.ADD);
+            writeUnsigned(out, sorted.size());
+            long lastEnd = 0;
+            for (int slot = 0; slot < sorted.size(); slot++) {
+                writeSignedLong(out, sorted.start(slot) - lastEnd);
+                writeUnsignedLong(out, sorted.length(slot));
+                lastEnd = sorted.end(slot);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /* records that MezzureEventHandler.setSnapping has been called with the features (or null) */
+    public void recordSnapping(FeatureIndex features) {
+        try {
+            writeEvent(SessionFormat.SNAPPING);
+            out.writeBoolean(features != null);
+            if (features == null) return;
+            writeUnsigned(out, features.size());
+            long last = 0;
+            for (int feature = 0; feature < features.size(); feature++) {
+                writeUnsignedLong(out, features.position(feature) - last);
+                last = features.position(feature);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+
+    // writes the type and the time since the previous event
+    private void writeEvent(int type) throws IOException {
+        long timestamp = System.nanoTime();
+        out.writeByte(type);
+        writeUnsigned(out, (int) Math.min(Integer.MAX_VALUE, (timestamp - lastTimestamp) / 1000));
+        lastTimestamp = timestamp;
+    }
+
+    private void writeHeader(MezzureConfiguration configuration, Iterable<Interval> intervals) throws IOException {
+        out.writeInt(SessionFormat.MAGIC);
+        out.writeByte(SessionFormat.VERSION);
+
+        writeUnsigned(out, configuration.width());
+        writeUnsigned(out, configuration.height());
+        writeUnsigned(out, configuration.sectionWidth());
+        writeUnsigned(out, configuration.sectionHeight());
+        writeUnsigned(out, configuration.sectionStart());
+        writeUnsigned(out, configuration.offsetY());
+        writeUnsigned(out, configuration.distanceBetweenSections());
+        writeUnsignedLong(out, configuration.domainStart());
+        writeUnsignedLong(out, configuration.domainEnd());
+        writeSignedLong(out, configuration.transform().start());
+        out.writeDouble(configuration.transform().unitsPerPixel());
+
+        List<Interval> initial = new ArrayList<>();
+        intervals.forEach(initial::add);
+
+        writeUnsigned(out, initial.size());
+        long lastEnd = 0;
+        for (Interval interval : initial) {
+            writeSignedLong(out, interval.start().center() - lastEnd);
+            writeUnsignedLong(out, interval.length());
+            lastEnd = interval.end().center();
+        }
+    }
+}
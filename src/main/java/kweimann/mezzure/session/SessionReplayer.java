@@ -0,0 +1,271 @@
+package kweimann.mezzure.session;
+
+import javafx.event.EventType;
+import javafx.scene.input.MouseButton;
+import javafx.scene.input.MouseEvent;
+import kweimann.mezzure.controller.MezzureEventHandler;
+import kweimann.mezzure.model.Interval;
+import kweimann.mezzure.model.IntervalStore;
+import kweimann.mezzure.model.Point;
+import kweimann.mezzure.util.FeatureIndex;
+import kweimann.mezzure.view.MezzureConfiguration;
+import kweimann.mezzure.view.MezzureLayout;
+import kweimann.mezzure.view.ViewTransform;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.function.Consumer;
+
+import static kweimann.mezzure.util.VarInts.readSigned;
+import static kweimann.mezzure.util.VarInts.readSignedLong;
+import static kweimann.mezzure.util.VarInts.readUnsigned;
+import static kweimann.mezzure.util.VarInts.readUnsignedLong;
+
+/* replays a recorded session at full speed against a counting drawing context and reports handler latencies */
+public final class SessionReplayer {
+
+    public enum Category { PRESS, DRAG, RELEASE, CLICK, HOVER }
+
+    private final MezzureLayout layout;
+    private final List<Interval> intervals;
+    // mouse events, the transforms shown from then on and the other changes of the handler (as consumers of the
+    // handler) in the order they have been recorded
+    private final Object[] events;
+    // duration of the recorded session in microseconds
+    private final long duration;
+
+    private SessionReplayer(MezzureLayout layout, List<Interval> intervals, Object[] events, long duration) {
+        this.layout = layout;
+        this.intervals = intervals;
+        this.events = events;
+        this.duration = duration;
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("usage: SessionReplayer <session file> [warm-up runs]");
+            System.exit(1);
+        }
+
+        SessionReplayer replayer;
+        try (InputStream in = Files.newInputStream(Paths.get(args[0]))) {
+            replayer = read(in);
+        }
+
+        int warmUpRuns = args.length > 1 ? Integer.parseInt(args[1]) : 0;
+        for (int run = 0; run < warmUpRuns; run++)
+            replayer.replay();
+
+        System.out.println(replayer.replay());
+    }
+
+    public static SessionReplayer read(InputStream in) throws IOException {
+        DataInputStream data = new DataInputStream(new BufferedInputStream(in));
+
+        if (data.readInt() != SessionFormat.MAGIC) throw new IOException("not a session recording");
+        if (data.readByte() != SessionFormat.VERSION) throw new IOException("unsupported session version");
+
+        MezzureConfiguration configuration = MezzureConfiguration
+                .builder(readUnsigned(data), readUnsigned(data))
+                .sectionWidth(readUnsigned(data))
+                .sectionHeight(readUnsigned(data))
+                .sectionStart(readUnsigned(data))
+                .offsetY(readUnsigned(data))
+                .distanceBetweenSections(readUnsigned(data))
+                .domain(readUnsignedLong(data), readUnsignedLong(data))
+                .transform(new ViewTransform(readSignedLong(data), data.readDouble()))
+                .build();
+
+        List<Interval> intervals = readIntervals(data);
+
+        // events are created up front so that creating them does not count towards the latencies
+        List<Object> events = new ArrayList<>();
+        long duration = 0;
+        int x = 0;
+        int y = 0;
+
+        while (true) {
+            int type;
+            try {
+                type = data.readUnsignedByte();
+            } catch (EOFException e) {
+                break;
+            }
+            if (type < SessionFormat.SNAPPING && type >= SessionFormat.EVENT_TYPES.size())
+                throw new IOException("unknown event type " + type);
+
+            duration += readUnsigned(data);
+            if (type == SessionFormat.TRANSFORM) {
+                events.add(new ViewTransform(readSignedLong(data), data.readDouble()));
+                continue;
+            } else if (type == SessionFormat.UNDO) {
+                events.add((Consumer<MezzureEventHandler>) MezzureEventHandler::undo);
+                continue;
+            } else if (type == SessionFormat.REDO) {
+                events.add((Consumer<MezzureEventHandler>) MezzureEventHandler::redo);
+                continue;
+            } else if (type == SessionFormat.ADD) {
+                IntervalStore batch = readStore(data);
+                events.add((Consumer<MezzureEventHandler>) handler -> handler.addIntervals(batch));
+                continue;
+            } else if (type == SessionFormat.SNAPPING) {
+                FeatureIndex features = readFeatures(data);
+                events.add((Consumer<MezzureEventHandler>) handler -> handler.setSnapping(features));
+                continue;
+            }
+            x += readSigned(data);
+            y += readSigned(data);
+            events.add(mouseEvent(SessionFormat.EVENT_TYPES.get(type), x, y, readUnsigned(data)));
+        }
+
+        return new SessionReplayer(new MezzureLayout(configuration), intervals, events.toArray(), duration);
+    }
+
+    private static List<Interval> readIntervals(DataInputStream data) throws IOException {
+        int count = readUnsigned(data);
+        List<Interval> intervals = new ArrayList<>(count);
+        long lastEnd = 0;
+        for (int i = 0; i < count; i++) {
+            long start = lastEnd + readSignedLong(data);
+            lastEnd = start + readUnsignedLong(data);
+            intervals.add(new Interval(new Point(start), new Point(lastEnd)));
+        }
+        return intervals;
+    }
+
+    private static IntervalStore readStore(DataInputStream data) throws IOException {
+        int count = readUnsigned(data);
+        IntervalStore store = new IntervalStore(count);
+        long lastEnd = 0;
+        for (int i = 0; i < count; i++) {
+            long start = lastEnd + readSignedLong(data);
+            lastEnd = start + readUnsignedLong(data);
+            store.insert(start, lastEnd);
+        }
+        return store;
+    }
+
+    // null if snapping has been turned off
+    private static FeatureIndex readFeatures(DataInputStream data) throws IOException {
+        if (!data.readBoolean()) return null;
+        long[] positions = new long[readUnsigned(data)];
+        long last = 0;
+        for (int feature = 0; feature < positions.length; feature++)
+            positions[feature] = last += readUnsignedLong(data);
+        return FeatureIndex.of(positions);
+    }
+
+    /* feeds all events into a new handler */
+    public Report replay() {
+        CountingDrawingContext dc = new CountingDrawingContext(layout);
+        MezzureEventHandler handler = new MezzureEventHandler(dc);
+        handler.addIntervals(intervals);
+
+        Map<Category, long[]> latencies = new EnumMap<>(Category.class);
+        Map<Category, Integer> counts = new EnumMap<>(Category.class);
+        for (Category category : Category.values()) {
+            latencies.put(category, new long[16]);
+            counts.put(category, 0);
+        }
+
+        for (Object next : events) {
+            // zooming and scrolling only change how the following events map onto the domain
+            if (next instanceof ViewTransform) {
+                dc.setTransform((ViewTransform) next);
+                continue;
+            }
+            // other changes are applied as recorded but not timed
+            if (next instanceof Consumer) {
+                @SuppressWarnings("unchecked")
+                Consumer<MezzureEventHandler> change = (Consumer<MezzureEventHandler>) next;
+                change.accept(handler);
+                continue;
+            }
+
+            MouseEvent event = (MouseEvent) next;
+            long start = System.nanoTime();
+            handler.handle(event);
+            long latency = System.nanoTime() - start;
+
+            Category category = category(event.getEventType());
+            int count = counts.get(category);
+            long[] categoryLatencies = latencies.get(category);
+            if (count == categoryLatencies.length)
+                latencies.put(category, categoryLatencies = Arrays.copyOf(categoryLatencies, count * 2));
+            categoryLatencies[count] = latency;
+            counts.put(category, count + 1);
+        }
+
+        for (Category category : Category.values()) {
+            long[] categoryLatencies = Arrays.copyOf(latencies.get(category), counts.get(category));
+            Arrays.sort(categoryLatencies);
+            latencies.put(category, categoryLatencies);
+        }
+
+        return new Report(latencies, dc, duration);
+    }
+
+    private static Category category(EventType<? extends MouseEvent> type) {
+        if (type == MouseEvent.MOUSE_PRESSED) return Category.PRESS;
+        else if (type == MouseEvent.MOUSE_DRAGGED) return Category.DRAG;
+        else if (type == MouseEvent.MOUSE_RELEASED) return Category.RELEASE;
+        else if (type == MouseEvent.MOUSE_CLICKED) return Category.CLICK;
+        else return Category.HOVER;
+    }
+
+    private static MouseEvent mouseEvent(EventType<MouseEvent> type, int x, int y, int clickCount) {
+        boolean pressed = type == MouseEvent.MOUSE_PRESSED || type == MouseEvent.MOUSE_DRAGGED;
+        return new MouseEvent(type, x, y, x, y, MouseButton.PRIMARY, clickCount,
+                false, false, false, false, pressed, false, false, false, false, false, null);
+    }
+
+    public static final class Report {
+        private static final double[] PERCENTILES = { 0.5, 0.9, 0.99, 0.999, 1 };
+
+        // sorted latencies in nanoseconds
+        private final Map<Category, long[]> latencies;
+        private final CountingDrawingContext dc;
+        private final long duration;
+
+        private Report(Map<Category, long[]> latencies, CountingDrawingContext dc, long duration) {
+            this.latencies = latencies;
+            this.dc = dc;
+            this.duration = duration;
+        }
+
+        public int count(Category category) {
+            return latencies.get(category).length;
+        }
+
+        /* returns the latency in nanoseconds below which the fraction p of all events of the category lies */
+        public long percentile(Category category, double p) {
+            long[] sorted = latencies.get(category);
+            if (sorted.length == 0) return 0;
+            return sorted[Math.max(0, (int) Math.ceil(p * sorted.length) - 1)];
+        }
+
+        public CountingDrawingContext drawingContext() {
+            return dc;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder report = new StringBuilder();
+            report.append(String.format("recorded session: %.1f s%n", duration / 1e6));
+            report.append(String.format("%-8s %8s %10s %10s %10s %10s %10s  (us)%n",
+                    "event", "count", "p50", "p90", "p99", "p99.9", "max"));
+            for (Category category : Category.values()) {
+                report.append(String.format("%-8s %8d", category.name().toLowerCase(), count(category)));
+                for (double p : PERCENTILES)
+                    report.append(String.format(" %10.1f", percentile(category, p) / 1e3));
+                report.append(String.format("%n"));
+            }
+            report.append(String.format("draw: %d, clear: %d, addText: %d, clearText: %d, setCursor: %d, transforms: %d",
+                    dc.drawCount(), dc.clearCount(), dc.addTextCount(), dc.clearTextCount(), dc.cursorCount(),
+                    dc.transformCount()));
+            return report.toString();
+        }
+    }
+}
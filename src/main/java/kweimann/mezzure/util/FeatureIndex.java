@@ -0,0 +1,78 @@
+package kweimann.mezzure.util;
+
+import java.util.Arrays;
+import java.util.function.LongToDoubleFunction;
+
+/* local extrema and zero crossings of a series for snapping positions onto them. features are kept as sorted positions
+ * so that the nearest one is found by binary search in O(log n) time */
+public final class FeatureIndex {
+
+    private final long[] positions;
+
+    private FeatureIndex(long[] positions) {
+        this.positions = positions;
+    }
+
+    /* indexes features at the given positions in ascending order (e.g. recorded ones); the array is not copied */
+    public static FeatureIndex of(long[] positions) {
+        for (int i = 1; i < positions.length; i++)
+            if (positions[i - 1] >= positions[i]) throw new IllegalArgumentException("positions not sorted");
+        return new FeatureIndex(positions);
+    }
+
+    /* indexes the features of the samples 0 to size - 1 in a single pass */
+    public static FeatureIndex build(long size, LongToDoubleFunction samples) {
+        long[] positions = new long[16];
+        int n = 0;
+
+        double previous = Double.NaN;
+        double current = size > 0 ? samples.applyAsDouble(0) : Double.NaN;
+        for (long i = 0; i < size; i++) {
+            double next = i + 1 < size ? samples.applyAsDouble(i + 1) : Double.NaN;
+            boolean feature =
+                    // local maximum or minimum (the first sample of a flat top or bottom)
+                    (current > previous && current >= next) || (current < previous && current <= next)
+                    // zero crossing at whichever of the two samples is closer to zero
+                    || (previous < 0 && current >= 0 && current <= -previous)
+                    || (previous > 0 && current <= 0 && -current <= previous)
+                    || (current < 0 && next > 0 && -current < next)
+                    || (current > 0 && next < 0 && current < -next);
+            if (feature) {
+                if (n == positions.length) positions = Arrays.copyOf(positions, n * 2);
+                positions[n++] = i;
+            }
+            previous = current;
+            current = next;
+        }
+        return new FeatureIndex(Arrays.copyOf(positions, n));
+    }
+
+    public int size() {
+        return positions.length;
+    }
+
+    public long position(int feature) {
+        return positions[feature];
+    }
+
+    /* returns the position of the feature nearest to x within [x - radius, x + radius] (the lower one if two are
+     * equally near) or x if there is none */
+    public long snap(long x, long radius) {
+        int higher = ceiling(x);
+        long best = x;
+        long distance = radius + 1;
+        // the lower candidate is checked first so that it wins a tie
+        if (higher > 0 && x - positions[higher - 1] < distance) {
+            best = positions[higher - 1];
+            distance = x - best;
+        }
+        if (higher < positions.length && positions[higher] - x < distance) best = positions[higher];
+        return best;
+    }
+
+    // index of the first feature at or after x
+    private int ceiling(long x) {
+        int i = Arrays.binarySearch(positions, x);
+        return i >= 0 ? i : -i - 1;
+    }
+}
@@ -0,0 +1,81 @@
+package kweimann.mezzure.util;
+
+/* reduces a line series to the first, the minimum, the maximum and the last sample of every pixel column (M4);
+ * connecting the remaining samples in their original order touches the same pixels as connecting all samples.
+ * samples must be added in ascending order of their X coordinate which is given in pixels */
+public final class M4Decimator {
+
+    public interface Segments {
+        void line(double x1, double y1, double x2, double y2);
+    }
+
+    private final Segments segments;
+
+    private long index;
+    // pixel column of the samples below or Long.MIN_VALUE if there is none
+    private long column = Long.MIN_VALUE;
+    private long firstIndex, minIndex, maxIndex, lastIndex;
+    private double firstX, firstY, minX, minY, maxX, maxY, lastX, lastY;
+
+    // last sample handed to `segments` (or -1)
+    private long emittedIndex = -1;
+    private double emittedX, emittedY;
+
+    public M4Decimator(Segments segments) {
+        this.segments = segments;
+    }
+
+    public void add(double x, double y) {
+        long column = (long) Math.floor(x);
+
+        if (column != this.column) {
+            emitColumn();
+            this.column = column;
+            firstIndex = minIndex = maxIndex = index;
+            firstX = minX = maxX = x;
+            firstY = minY = maxY = y;
+        } else if (y < minY) {
+            minIndex = index;
+            minX = x;
+            minY = y;
+        } else if (y > maxY) {
+            maxIndex = index;
+            maxX = x;
+            maxY = y;
+        }
+
+        lastIndex = index++;
+        lastX = x;
+        lastY = y;
+    }
+
+    /* draws the samples of the last column; the decimator may be reused afterwards */
+    public void finish() {
+        emitColumn();
+        column = Long.MIN_VALUE;
+        emittedIndex = -1;
+    }
+
+    private void emitColumn() {
+        if (column == Long.MIN_VALUE) return;
+
+        emit(firstIndex, firstX, firstY);
+        if (minIndex < maxIndex) {
+            emit(minIndex, minX, minY);
+            emit(maxIndex, maxX, maxY);
+        } else {
+            emit(maxIndex, maxX, maxY);
+            emit(minIndex, minX, minY);
+        }
+        emit(lastIndex, lastX, lastY);
+    }
+
+    private void emit(long index, double x, double y) {
+        // the same sample may be first, min, max and last at once
+        if (index == emittedIndex) return;
+        if (emittedIndex >= 0) segments.line(emittedX, emittedY, x, y);
+        emittedIndex = index;
+        emittedX = x;
+        emittedY = y;
+    }
+}
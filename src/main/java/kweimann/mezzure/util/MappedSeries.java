@@ -0,0 +1,259 @@
+package kweimann.mezzure.util;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/* series of doubles stored in a binary file that is memory mapped in chunks. a pyramid of min/max values per block
+ * (stored next to the file and rebuilt whenever the file changes) answers min/max queries over any range by reading
+ * at most 2 * (BRANCHING - 1) values per level instead of the whole range */
+public final class MappedSeries implements Closeable {
+    // doubles per mapped chunk of the series (1 GiB)
+    private static final int CHUNK_SHIFT = 27;
+    private static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+    // samples per block on the first level and blocks per block on every level above
+    private static final int BRANCHING = 32;
+
+    private static final String PYRAMID_SUFFIX = ".pyramid";
+    private static final int PYRAMID_MAGIC = 0x4D5A5059;
+    private static final int PYRAMID_VERSION = 1;
+    // magic, version, branching, level count, series size and series modification time
+    private static final int PYRAMID_HEADER_SIZE = 32;
+
+    private final long size;
+    private final DoubleBuffer[] chunks;
+    // levels[k] holds min and max of every block of BRANCHING^(k + 1) samples one after another
+    private final DoubleBuffer[] levels;
+
+    private MappedSeries(long size, DoubleBuffer[] chunks, DoubleBuffer[] levels) {
+        this.size = size;
+        this.chunks = chunks;
+        this.levels = levels;
+    }
+
+    /* opens a file of big-endian doubles */
+    public static MappedSeries open(Path path) throws IOException {
+        return open(path, ByteOrder.BIG_ENDIAN);
+    }
+
+    public static MappedSeries open(Path path, ByteOrder order) throws IOException {
+        DoubleBuffer[] chunks;
+        long size;
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            size = channel.size() / Double.BYTES;
+            if (size == 0) throw new IOException("empty series");
+
+            // mappings stay valid after the channel has been closed
+            chunks = new DoubleBuffer[(int) ((size + CHUNK_SIZE - 1) >>> CHUNK_SHIFT)];
+            for (int i = 0; i < chunks.length; i++) {
+                long first = (long) i << CHUNK_SHIFT;
+                long length = Math.min(CHUNK_SIZE, size - first);
+                chunks[i] = channel
+                        .map(FileChannel.MapMode.READ_ONLY, first * Double.BYTES, length * Double.BYTES)
+                        .order(order)
+                        .asDoubleBuffer();
+            }
+        }
+
+        MappedSeries series = new MappedSeries(size, chunks, new DoubleBuffer[levelCount(size)]);
+        series.loadPyramid(path.resolveSibling(path.getFileName() + PYRAMID_SUFFIX), Files.getLastModifiedTime(path).toMillis());
+        return series;
+    }
+
+    public long size() {
+        return size;
+    }
+
+    public double get(long index) {
+        if (index < 0 || index >= size) throw new IndexOutOfBoundsException();
+        return chunks[(int) (index >>> CHUNK_SHIFT)].get((int) (index & (CHUNK_SIZE - 1)));
+    }
+
+    public double min() {
+        double[] minMax = new double[2];
+        minMax(0, size, minMax);
+        return minMax[0];
+    }
+
+    public double max() {
+        double[] minMax = new double[2];
+        minMax(0, size, minMax);
+        return minMax[1];
+    }
+
+    /* writes min and max of the samples [from, to) into minMax[0] and minMax[1] (NaN if the range is empty) */
+    public void minMax(long from, long to, double[] minMax) {
+        if (from < 0 || to > size || from > to) throw new IndexOutOfBoundsException();
+
+        minMax[0] = Double.POSITIVE_INFINITY;
+        minMax[1] = Double.NEGATIVE_INFINITY;
+
+        // start on the highest level whose blocks fit into the range
+        int level = 0;
+        while (level < levels.length && blockSize(level + 1) <= to - from) level++;
+        fold(level, from, to, minMax);
+
+        if (from == to) minMax[0] = minMax[1] = Double.NaN;
+    }
+
+    /* splits [from, to) into `columns` parts of (almost) equal length and writes min and max of each part */
+    public void minMax(long from, long to, int columns, double[] mins, double[] maxs) {
+        double[] minMax = new double[2];
+        for (int column = 0; column < columns; column++) {
+            minMax(from + (to - from) * column / columns, from + (to - from) * (column + 1) / columns, minMax);
+            mins[column] = minMax[0];
+            maxs[column] = minMax[1];
+        }
+    }
+
+    /* unmapping is left to the garbage collector since there is no public way to unmap a buffer */
+    @Override
+    public void close() {
+    }
+
+    // folds min and max of [from, to) into minMax using the blocks of the level and of the levels below
+    private void fold(int level, long from, long to, double[] minMax) {
+        if (from >= to) return;
+
+        if (level == 0) {
+            for (long i = from; i < to; i++) {
+                double value = get(i);
+                minMax[0] = Math.min(minMax[0], value);
+                minMax[1] = Math.max(minMax[1], value);
+            }
+            return;
+        }
+
+        long blockSize = blockSize(level);
+        long first = (from + blockSize - 1) / blockSize;
+        long last = to / blockSize;
+        if (first >= last) {
+            fold(level - 1, from, to, minMax);
+            return;
+        }
+
+        fold(level - 1, from, first * blockSize, minMax);
+        DoubleBuffer blocks = levels[level - 1];
+        for (long block = first; block < last; block++) {
+            minMax[0] = Math.min(minMax[0], blocks.get((int) (2 * block)));
+            minMax[1] = Math.max(minMax[1], blocks.get((int) (2 * block + 1)));
+        }
+        fold(level - 1, last * blockSize, to, minMax);
+    }
+
+    private void loadPyramid(Path path, long modified) throws IOException {
+        long length = PYRAMID_HEADER_SIZE;
+        for (int level = 1; level <= levels.length; level++)
+            length += blockCount(level) * 2 * Double.BYTES;
+
+        if (Files.isRegularFile(path) && Files.size(path) == length) {
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, PYRAMID_HEADER_SIZE);
+                if (header.getInt() == PYRAMID_MAGIC
+                        && header.getInt() == PYRAMID_VERSION
+                        && header.getInt() == BRANCHING
+                        && header.getInt() == levels.length
+                        && header.getLong() == size
+                        && header.getLong() == modified) {
+                    mapLevels(channel, FileChannel.MapMode.READ_ONLY);
+                    return;
+                }
+            }
+        }
+
+        try (FileChannel channel = FileChannel.open(path,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            mapLevels(channel, FileChannel.MapMode.READ_WRITE);
+            buildPyramid();
+
+            // the header is written last so that an interrupted build is never taken for a complete pyramid
+            ByteBuffer header = ByteBuffer.allocate(PYRAMID_HEADER_SIZE);
+            header.putInt(PYRAMID_MAGIC)
+                    .putInt(PYRAMID_VERSION)
+                    .putInt(BRANCHING)
+                    .putInt(levels.length)
+                    .putLong(size)
+                    .putLong(modified)
+                    .flip();
+            channel.write(header, 0);
+            channel.force(true);
+        } catch (IOException e) {
+            // the pyramid cannot be stored (e.g. read-only directory) so keep it in memory
+            for (int level = 1; level <= levels.length; level++)
+                levels[level - 1] = DoubleBuffer.allocate(checkedLength(level));
+            buildPyramid();
+        }
+    }
+
+    private void mapLevels(FileChannel channel, FileChannel.MapMode mode) throws IOException {
+        long position = PYRAMID_HEADER_SIZE;
+        for (int level = 1; level <= levels.length; level++) {
+            long length = (long) checkedLength(level) * Double.BYTES;
+            MappedByteBuffer buffer = channel.map(mode, position, length);
+            levels[level - 1] = buffer.order(ByteOrder.BIG_ENDIAN).asDoubleBuffer();
+            position += length;
+        }
+    }
+
+    private void buildPyramid() {
+        for (int level = 1; level <= levels.length; level++) {
+            DoubleBuffer blocks = levels[level - 1];
+            DoubleBuffer below = level > 1 ? levels[level - 2] : null;
+            long count = blockCount(level);
+
+            for (long block = 0; block < count; block++) {
+                double min = Double.POSITIVE_INFINITY;
+                double max = Double.NEGATIVE_INFINITY;
+
+                if (below == null) {
+                    for (long i = block * BRANCHING, end = Math.min(size, i + BRANCHING); i < end; i++) {
+                        double value = get(i);
+                        min = Math.min(min, value);
+                        max = Math.max(max, value);
+                    }
+                } else {
+                    for (long i = block * BRANCHING, end = Math.min(blockCount(level - 1), i + BRANCHING); i < end; i++) {
+                        min = Math.min(min, below.get((int) (2 * i)));
+                        max = Math.max(max, below.get((int) (2 * i + 1)));
+                    }
+                }
+
+                blocks.put((int) (2 * block), min);
+                blocks.put((int) (2 * block + 1), max);
+            }
+        }
+    }
+
+    private int checkedLength(int level) {
+        long length = blockCount(level) * 2;
+        if (length > Integer.MAX_VALUE) throw new IllegalStateException("series too long");
+        return (int) length;
+    }
+
+    private long blockCount(int level) {
+        long blockSize = blockSize(level);
+        return (size + blockSize - 1) / blockSize;
+    }
+
+    private static long blockSize(int level) {
+        long blockSize = 1;
+        for (int i = 0; i < level; i++) blockSize *= BRANCHING;
+        return blockSize;
+    }
+
+    // levels are added until a single block covers the whole series
+    private static int levelCount(long size) {
+        int levels = 0;
+        for (long blockSize = 1; blockSize < size; blockSize *= BRANCHING) levels++;
+        return levels;
+    }
+}
@@ -0,0 +1,90 @@
+package kweimann.mezzure.util;
+
+/* pixel buffer of premultiplied ARGB colors (transparent at first) which shapes are blended onto with source over;
+ * it holds no JavaFX state so that any thread may draw on it. colors are given as non-premultiplied ARGB */
+public final class Raster {
+
+    private final int width;
+    private final int height;
+    private final int[] pixels;
+
+    public Raster(int width, int height) {
+        if (width < 0 || height < 0) throw new IllegalArgumentException();
+
+        this.width = width;
+        this.height = height;
+        this.pixels = new int[width * height];
+    }
+
+    public int width() {
+        return width;
+    }
+
+    public int height() {
+        return height;
+    }
+
+    /* the pixels row by row (e.g. for PixelFormat.getIntArgbPreInstance()); not copied */
+    public int[] pixels() {
+        return pixels;
+    }
+
+    /* fills the pixels [x, x + width) x [y, y + height) clipped to the raster */
+    public void fillRect(int x, int y, int width, int height, int argb) {
+        int fromX = Math.max(x, 0);
+        int toX = Math.min(x + width, this.width);
+        int fromY = Math.max(y, 0);
+        int toY = Math.min(y + height, this.height);
+        int color = premultiply(argb);
+
+        for (int row = fromY; row < toY; row++)
+            for (int column = fromX; column < toX; column++) blend(row * this.width + column, color);
+    }
+
+    /* draws a one pixel wide line between the two points without anti-aliasing; the pixel containing a point is the
+     * one its coordinates round down to */
+    public void line(double x1, double y1, double x2, double y2, int argb) {
+        int color = premultiply(argb);
+        // one pixel per step along the longer axis
+        int steps = (int) Math.max(Math.abs(Math.floor(x2) - Math.floor(x1)), Math.abs(Math.floor(y2) - Math.floor(y1)));
+        double dx = steps == 0 ? 0 : (x2 - x1) / steps;
+        double dy = steps == 0 ? 0 : (y2 - y1) / steps;
+
+        for (int step = 0; step <= steps; step++) {
+            int column = (int) Math.floor(x1 + step * dx);
+            int row = (int) Math.floor(y1 + step * dy);
+            if (column >= 0 && column < width && row >= 0 && row < height) blend(row * width + column, color);
+        }
+    }
+
+    // source over destination with both colors premultiplied
+    private void blend(int i, int color) {
+        int alpha = color >>> 24;
+        if (alpha == 255) {
+            pixels[i] = color;
+            return;
+        }
+
+        int pixel = pixels[i];
+        int remaining = 255 - alpha;
+        int a = alpha + scale(pixel >>> 24, remaining);
+        int r = (color >> 16 & 0xFF) + scale(pixel >> 16 & 0xFF, remaining);
+        int g = (color >> 8 & 0xFF) + scale(pixel >> 8 & 0xFF, remaining);
+        int b = (color & 0xFF) + scale(pixel & 0xFF, remaining);
+        pixels[i] = a << 24 | r << 16 | g << 8 | b;
+    }
+
+    private static int premultiply(int argb) {
+        int alpha = argb >>> 24;
+        return alpha << 24
+                | scale(argb >> 16 & 0xFF, alpha) << 16
+                | scale(argb >> 8 & 0xFF, alpha) << 8
+                | scale(argb & 0xFF, alpha);
+    }
+
+    // c * f / 255 rounded
+    private static int scale(int c, int f) {
+        int t = c * f + 128;
+        return (t + (t >> 8)) >> 8;
+    }
+}
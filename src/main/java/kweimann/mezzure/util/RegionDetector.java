@@ -0,0 +1,243 @@
+package kweimann.mezzure.util;
+
+import kweimann.mezzure.model.IntervalStore;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.LongToDoubleFunction;
+
+/* finds regions of a series (threshold crossings, plateaus, lobes between zero crossings) and returns them as
+ * intervals [first sample, last sample]. the series is split into chunks that are scanned in parallel; runs reaching
+ * the end of a chunk are stitched with the runs of the next chunk afterwards so that chunking never splits a region.
+ * regions neither overlap nor touch each other so they may be passed to MezzureEventHandler.addIntervals */
+public final class RegionDetector {
+    // samples scanned by a single task
+    private static final int CHUNK_SIZE = 1 << 16;
+
+    /* assigns every sample a class given its predecessor (NaN for the first sample); maximal runs of samples of the
+     * same class other than 0 form the regions */
+    public interface Rule {
+        int classify(double previous, double value);
+
+        /* true if a run also covers the predecessor of its first sample (e.g. a plateau starts one sample earlier
+         * than the first sample that is flat with its predecessor) */
+        default boolean includesPrevious() {
+            return false;
+        }
+
+        /* samples above the threshold */
+        static Rule above(double threshold) {
+            return (previous, value) -> value > threshold ? 1 : 0;
+        }
+
+        /* samples below the threshold */
+        static Rule below(double threshold) {
+            return (previous, value) -> value < threshold ? 1 : 0;
+        }
+
+        /* samples that differ from their predecessor by at most the tolerance */
+        static Rule plateaus(double tolerance) {
+            if (!(tolerance >= 0)) throw new IllegalArgumentException("bad tolerance");
+            return new Rule() {
+                @Override
+                public int classify(double previous, double value) {
+                    return Math.abs(value - previous) <= tolerance ? 1 : 0;
+                }
+
+                @Override
+                public boolean includesPrevious() {
+                    return true;
+                }
+            };
+        }
+
+        /* positive and negative lobes between zero crossings */
+        static Rule lobes() {
+            return (previous, value) -> value > 0 ? 1 : value < 0 ? -1 : 0;
+        }
+    }
+
+    private final Rule rule;
+    private final long minLength;
+    private final double minPeak;
+
+    private RegionDetector(Builder builder) {
+        this.rule = builder.rule;
+        this.minLength = builder.minLength;
+        this.minPeak = builder.minPeak;
+    }
+
+    public static Builder builder(Rule rule) {
+        if (rule == null) throw new IllegalArgumentException("no rule");
+        return new Builder(rule);
+    }
+
+    /* detects the regions of the samples 0 to size - 1 using the common pool */
+    public IntervalStore detect(long size, LongToDoubleFunction samples) {
+        return detect(size, samples, ForkJoinPool.commonPool());
+    }
+
+    public IntervalStore detect(long size, LongToDoubleFunction samples, ForkJoinPool pool) {
+        if (size < 0) throw new IllegalArgumentException("bad size");
+        long chunkCount = (size + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        if (chunkCount > Integer.MAX_VALUE) throw new IllegalArgumentException("series too long");
+
+        Runs[] chunks = new Runs[(int) chunkCount];
+        pool.invoke(new Scan(samples, size, chunks, 0, chunks.length));
+        return stitch(chunks);
+    }
+
+    // joins runs continuing across chunks and keeps the runs passing the filters
+    private IntervalStore stitch(Runs[] chunks) {
+        int capacity = 0;
+        for (Runs runs : chunks) capacity += runs.size;
+        long[] starts = new long[capacity];
+        long[] ends = new long[capacity];
+        int n = 0;
+
+        // run not emitted yet since the next chunk may continue it
+        boolean pending = false;
+        long start = 0, end = 0;
+        int type = 0;
+        double peak = 0;
+
+        for (Runs runs : chunks) {
+            for (int i = 0; i < runs.size; i++) {
+                if (pending && runs.types[i] == type && runs.starts[i] == end + 1) {
+                    end = runs.ends[i];
+                    peak = Math.max(peak, runs.peaks[i]);
+                    continue;
+                }
+                if (pending && accepts(start, end, peak)) {
+                    starts[n] = rule.includesPrevious() ? start - 1 : start;
+                    ends[n++] = end;
+                }
+                pending = true;
+                start = runs.starts[i];
+                end = runs.ends[i];
+                type = runs.types[i];
+                peak = runs.peaks[i];
+            }
+        }
+        if (pending && accepts(start, end, peak)) {
+            starts[n] = rule.includesPrevious() ? start - 1 : start;
+            ends[n++] = end;
+        }
+
+        IntervalStore regions = new IntervalStore(n);
+        regions.insertAll(starts, ends, n);
+        return regions;
+    }
+
+    private boolean accepts(long start, long end, double peak) {
+        if (rule.includesPrevious()) start--;
+        // an interval needs two distinct points
+        return end > start && end - start + 1 >= minLength && peak >= minPeak;
+    }
+
+    public static final class Builder {
+        private final Rule rule;
+        private long minLength = 2;
+        private double minPeak = 0;
+
+        private Builder(Rule rule) {
+            this.rule = rule;
+        }
+
+        /* regions shorter than the given number of samples are dropped (at least two samples) */
+        public Builder minLength(long minLength) {
+            this.minLength = minLength;
+            return this;
+        }
+
+        /* regions whose largest absolute value stays below the given magnitude are dropped */
+        public Builder minPeak(double minPeak) {
+            this.minPeak = minPeak;
+            return this;
+        }
+
+        public RegionDetector build() {
+            if (minLength < 2) throw new IllegalArgumentException("bad min length");
+            if (!(minPeak >= 0)) throw new IllegalArgumentException("bad min peak");
+            return new RegionDetector(this);
+        }
+    }
+
+    // maximal runs of a chunk in ascending order
+    private static final class Runs {
+        long[] starts = new long[8];
+        long[] ends = new long[8];
+        int[] types = new int[8];
+        double[] peaks = new double[8];
+        int size;
+
+        void add(long start, long end, int type, double peak) {
+            if (size == starts.length) {
+                starts = Arrays.copyOf(starts, size * 2);
+                ends = Arrays.copyOf(ends, size * 2);
+                types = Arrays.copyOf(types, size * 2);
+                peaks = Arrays.copyOf(peaks, size * 2);
+            }
+            starts[size] = start;
+            ends[size] = end;
+            types[size] = type;
+            peaks[size++] = peak;
+        }
+    }
+
+    private class Scan extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final LongToDoubleFunction samples;
+        private final long size;
+        private final Runs[] chunks;
+        private final int from;
+        private final int to;
+
+        Scan(LongToDoubleFunction samples, long size, Runs[] chunks, int from, int to) {
+            this.samples = samples;
+            this.size = size;
+            this.chunks = chunks;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= 1) {
+                for (int chunk = from; chunk < to; chunk++)
+                    chunks[chunk] = scan((long) chunk * CHUNK_SIZE, Math.min(size, (long) (chunk + 1) * CHUNK_SIZE));
+            } else {
+                int mid = (from + to) >>> 1;
+                invokeAll(new Scan(samples, size, chunks, from, mid), new Scan(samples, size, chunks, mid, to));
+            }
+        }
+
+        // the sample preceding the chunk is read again so that every sample is classified against its predecessor
+        private Runs scan(long from, long to) {
+            Rule rule = RegionDetector.this.rule;
+            Runs runs = new Runs();
+            double previous = from > 0 ? samples.applyAsDouble(from - 1) : Double.NaN;
+            long start = -1;
+            int type = 0;
+            double peak = 0;
+
+            // chunks are short enough for an int counter which the JIT optimizes better than a long one
+            for (int k = 0, n = (int) (to - from); k < n; k++) {
+                double value = samples.applyAsDouble(from + k);
+                int current = rule.classify(previous, value);
+                if (current != type) {
+                    if (type != 0) runs.add(start, from + k - 1, type, peak);
+                    type = current;
+                    start = from + k;
+                    peak = 0;
+                }
+                if (type != 0) peak = Math.max(peak, Math.abs(value));
+                previous = value;
+            }
+            if (type != 0) runs.add(start, to - 1, type, peak);
+            return runs;
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package kweimann.mezzure.util;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.DoubleUnaryOperator;
+
+/* values of a function at evenly spaced ticks; the function is evaluated once per tick in parallel and its range is
+ * determined in the same pass */
+public final class Samples {
+    // ticks evaluated by a single task
+    private static final int THRESHOLD = 1 << 10;
+    // fraction of a tick by which x may miss a tick due to rounding errors and still count as lying on it
+    private static final double EPSILON = 1e-9;
+
+    private final double xLow;
+    private final double xTick;
+    private final double[] ys;
+    private final double yLow;
+    private final double yHigh;
+
+    private Samples(double xLow, double xTick, double[] ys, double yLow, double yHigh) {
+        this.xLow = xLow;
+        this.xTick = xTick;
+        this.ys = ys;
+        this.yLow = yLow;
+        this.yHigh = yHigh;
+    }
+
+    /* evaluates the function at nTicks ticks from xLow to xHigh (both inclusive) using the common pool */
+    public static Samples evaluate(DoubleUnaryOperator function, double xLow, double xHigh, int nTicks) {
+        return evaluate(function, xLow, xHigh, nTicks, ForkJoinPool.commonPool());
+    }
+
+    public static Samples evaluate(DoubleUnaryOperator function, double xLow, double xHigh, int nTicks, ForkJoinPool pool) {
+        if (xLow > xHigh) throw new IllegalArgumentException("bad range");
+        if (nTicks < 2) throw new IllegalArgumentException("too few ticks");
+
+        double xTick = (xHigh - xLow) / (nTicks - 1);
+        Evaluation evaluation = new Evaluation(function, xLow, xTick, new double[nTicks], 0, nTicks);
+        pool.invoke(evaluation);
+        return new Samples(xLow, xTick, evaluation.ys, evaluation.yLow, evaluation.yHigh);
+    }
+
+    public int size() {
+        return ys.length;
+    }
+
+    public double xLow() {
+        return xLow;
+    }
+
+    public double xHigh() {
+        return x(ys.length - 1);
+    }
+
+    public double xTick() {
+        return xTick;
+    }
+
+    public double x(int tick) {
+        return xLow + tick * xTick;
+    }
+
+    public double y(int tick) {
+        return ys[tick];
+    }
+
+    public double yLow() {
+        return yLow;
+    }
+
+    public double yHigh() {
+        return yHigh;
+    }
+
+    /* returns the first tick at or after x */
+    public int ceilTick(double x) {
+        return Math.min(ys.length, Math.max(0, (int) Math.ceil((x - xLow) / xTick - EPSILON)));
+    }
+
+    /* returns the last tick at or before x */
+    public int floorTick(double x) {
+        return Math.min(ys.length - 1, Math.max(-1, (int) Math.floor((x - xLow) / xTick + EPSILON)));
+    }
+
+    private static class Evaluation extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final DoubleUnaryOperator function;
+        private final double xLow;
+        private final double xTick;
+        private final double[] ys;
+        private final int from;
+        private final int to;
+
+        // range of the values from `from` (inclusive) to `to` (exclusive)
+        private double yLow = Double.POSITIVE_INFINITY;
+        private double yHigh = Double.NEGATIVE_INFINITY;
+
+        Evaluation(DoubleUnaryOperator function, double xLow, double xTick, double[] ys, int from, int to) {
+            this.function = function;
+            this.xLow = xLow;
+            this.xTick = xTick;
+            this.ys = ys;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= THRESHOLD) {
+                for (int tick = from; tick < to; tick++) {
+                    double y = function.applyAsDouble(xLow + tick * xTick);
+                    ys[tick] = y;
+                    yLow = Math.min(yLow, y);
+                    yHigh = Math.max(yHigh, y);
+                }
+            } else {
+                int mid = (from + to) >>> 1;
+                Evaluation left = new Evaluation(function, xLow, xTick, ys, from, mid);
+                Evaluation right = new Evaluation(function, xLow, xTick, ys, mid, to);
+                invokeAll(left, right);
+                yLow = Math.min(left.yLow, right.yLow);
+                yHigh = Math.max(left.yHigh, right.yHigh);
+            }
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package kweimann.mezzure.util;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/* variable length encoding of ints and longs (7 bits per byte, least significant group first) */
+public final class VarInts {
+
+    private VarInts() {}
+
+    /* writes a non-negative int */
+    public static void writeUnsigned(DataOutput out, int n) throws IOException {
+        while ((n & ~0x7F) != 0) {
+            out.writeByte((n & 0x7F) | 0x80);
+            n >>>= 7;
+        }
+        out.writeByte(n);
+    }
+
+    /* writes an int using zigzag encoding so that small negative numbers stay small */
+    public static void writeSigned(DataOutput out, int n) throws IOException {
+        writeUnsigned(out, (n << 1) ^ (n >> 31));
+    }
+
+    /* writes a non-negative long */
+    public static void writeUnsignedLong(DataOutput out, long n) throws IOException {
+        while ((n & ~0x7FL) != 0) {
+            out.writeByte((int) (n & 0x7F) | 0x80);
+            n >>>= 7;
+        }
+        out.writeByte((int) n);
+    }
+
+    public static void writeSignedLong(DataOutput out, long n) throws IOException {
+        writeUnsignedLong(out, (n << 1) ^ (n >> 63));
+    }
+
+    public static int readUnsigned(DataInput in) throws IOException {
+        int n = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            byte b = in.readByte();
+            n |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return n;
+        }
+        throw new IOException("malformed varint");
+    }
+
+    public static int readSigned(DataInput in) throws IOException {
+        int n = readUnsigned(in);
+        return (n >>> 1) ^ -(n & 1);
+    }
+
+    public static long readUnsignedLong(DataInput in) throws IOException {
+        long n = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = in.readByte();
+            n |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return n;
+        }
+        throw new IOException("malformed varint");
+    }
+
+    public static long readSignedLong(DataInput in) throws IOException {
+        long n = readUnsignedLong(in);
+        return (n >>> 1) ^ -(n & 1);
+    }
+
+    /* buffer variants; reading past the buffer's limit throws BufferUnderflowException */
+
+    public static void writeUnsignedLong(ByteBuffer out, long n) {
+        while ((n & ~0x7FL) != 0) {
+            out.put((byte) ((n & 0x7F) | 0x80));
+            n >>>= 7;
+        }
+        out.put((byte) n);
+    }
+
+    public static long readUnsignedLong(ByteBuffer in) throws IOException {
+        long n = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = in.get();
+            n |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return n;
+        }
+        throw new IOException("malformed varint");
+    }
+}
@@ -2,6 +2,7 @@ package kweimann.mezzure.view;
 
 import javafx.scene.Cursor;
 import kweimann.mezzure.model.Element1D;
+import kweimann.mezzure.model.Interval;
 import kweimann.mezzure.model.Point;
 
 public interface DrawingContext {
@@ -11,9 +12,53 @@ public interface DrawingContext {
     void draw(Element1D element);
     void clear(Element1D element);
 
+    /* primitive variants of draw / clear for a point at domain coordinate x */
+
+    default void drawPoint(long x) {
+        draw(new Point(x));
+    }
+
+    default void clearPoint(long x) {
+        clear(new Point(x));
+    }
+
+    /* primitive variants of draw / clear / addText / clearText for the interval [start, end] in domain coordinates;
+     * contexts that override them let dragging an interval run without allocating */
+
+    default void drawInterval(long start, long end) {
+        draw(new Interval(new Point(start), new Point(end)));
+    }
+
+    default void clearInterval(long start, long end) {
+        clear(new Interval(new Point(start), new Point(end)));
+    }
+
+    default void addText(long start, long end) {
+        addText(new Interval(new Point(start), new Point(end)));
+    }
+
+    default void clearText(long start, long end) {
+        clearText(new Interval(new Point(start), new Point(end)));
+    }
+
+    /* applies operations that have been deferred; contexts that draw immediately have nothing to do */
+    default void flush() {
+    }
+
     void setCursor(Cursor cursor);
 
-    Point getPoint(int canvasX, int canvasY, boolean fitToSection);
+    /* returns domain coordinate of the canvas position or -1 if it does not lie within any section */
+    long getX(int canvasX, int canvasY, boolean fitToSection);
+
+    default Point getPoint(int canvasX, int canvasY, boolean fitToSection) {
+        long x = getX(canvasX, canvasY, fitToSection);
+        return x < 0 ? null : new Point(x);
+    }
+
+    /* returns the domain length currently shown by the number of pixels (e.g. to turn pixel tolerances into lengths) */
+    long getLength(int pixels);
+
+    /* first and last domain coordinate */
     Point getStart();
     Point getEnd();
 }
@@ -0,0 +1,207 @@
+package kweimann.mezzure.view;
+
+import javafx.geometry.VPos;
+import javafx.scene.Node;
+import javafx.scene.paint.Color;
+import javafx.scene.text.Text;
+import javafx.scene.text.TextAlignment;
+
+import java.util.*;
+
+/* draws labels onto tiles of their own instead of adding a Text node per label to the scene graph;
+ * removing a label clears its bounds and redraws the parts of the labels it overlapped.
+ * only labels of visible sections are kept; sections coming into view are labeled again by the drawing context */
+final class LabelLayer {
+    /* returns the content of the label of [start, end] in domain coordinates (a point if start == end) or null if
+     * it is not labeled */
+    interface Descriptor {
+        String describe(long start, long end);
+    }
+
+    private static final int WIDTH_CACHE_SIZE = 1024;
+    // clearing reaches one pixel beyond the measured bounds to erase anti-aliased edges
+    private static final int MARGIN = 1;
+
+    private static final Comparator<Label> ORDER = Comparator
+            .comparingInt((Label label) -> label.section)
+            .thenComparingInt(label -> label.x)
+            .thenComparingLong(label -> label.sequence);
+
+    private final MezzureLayout layout;
+    private final Tiles tiles;
+    private final Descriptor descriptor;
+
+    // labels sorted by their section and center so that overlapping labels are found in O(log n + k)
+    private final NavigableSet<Label> sorted = new TreeSet<>(ORDER);
+    private long sequence;
+    private double maxWidth;
+
+    // sections whose labels are painted and columns of tiles they are painted onto
+    private int firstVisible;
+    private int lastVisible = Integer.MAX_VALUE;
+    private int firstVisibleColumn;
+    private int lastVisibleColumn;
+    // labels to redraw after a removed label has been cleared
+    private final List<Label> overlapped = new ArrayList<>();
+
+    // text metrics; all labels share the default font so that only their widths differ
+    private final Text measure = new Text();
+    private final double lineHeight;
+    private final Map<String, Double> widths = new LinkedHashMap<String, Double>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Double> eldest) {
+            return size() > WIDTH_CACHE_SIZE;
+        }
+    };
+
+    LabelLayer(MezzureLayout layout, Descriptor descriptor) {
+        this.layout = layout;
+        this.descriptor = descriptor;
+        this.lineHeight = measure.getLayoutBounds().getHeight();
+        // a label tile covers the labels resting on the top of its section
+        this.tiles = new Tiles(layout, lineHeight + MARGIN, lineHeight + 2 * MARGIN, gc -> {
+            gc.setFont(measure.getFont());
+            gc.setFill(Color.BLACK);
+            gc.setTextAlign(TextAlignment.CENTER);
+            gc.setTextBaseline(VPos.BOTTOM);
+        });
+        this.tiles.node().setMouseTransparent(true);
+        this.lastVisibleColumn = tiles.column(layout.configuration().width());
+    }
+
+    Node node() {
+        return tiles.node();
+    }
+
+    /* shows the label of [start, end] horizontally centered at canvas X coordinate x and resting on the top of the
+     * section unless the section is hidden; replaces the previous label of [start, end] at the same position */
+    void add(long start, long end, int x, int section) {
+        if (!isVisible(section)) return;
+        remove(start, end, x, section);
+
+        String content = descriptor.describe(start, end);
+        if (content == null) return;
+        Label label = new Label(start, end, x, layout.getSectionTop(section), section, sequence++, content);
+        sorted.add(label);
+
+        maxWidth = Math.max(maxWidth, width(content));
+        tiles.fillText(section, content, x, label.y, width(content));
+    }
+
+    /* removes the label of [start, end] shown at canvas X coordinate x in the section (if any) */
+    void remove(long start, long end, int x, int section) {
+        if (!isVisible(section)) return;
+        Label removed = find(start, end, x, section);
+        if (removed == null) return;
+        sorted.remove(removed);
+
+        double width = width(removed.content) + 2 * MARGIN;
+        double height = lineHeight + 2 * MARGIN;
+        double left = removed.x - width / 2;
+        double top = removed.y - lineHeight - MARGIN;
+        tiles.clearRect(removed.section, left, top, width, height);
+
+        // redraw what the removed label covered of its neighbours
+        for (Label label : sorted.subSet(
+                probe(removed.section, (int) Math.floor(left - maxWidth / 2)), true,
+                probe(removed.section, (int) Math.ceil(left + width + maxWidth / 2)), true)) {
+            if (Math.abs(label.x - removed.x) <= (width(label.content) + width) / 2)
+                overlapped.add(label);
+        }
+        if (overlapped.isEmpty()) return;
+        tiles.clip(removed.section, left, top, width, height, gc -> {
+            for (Label label : overlapped) gc.fillText(label.content, label.x, label.y);
+        });
+        overlapped.clear();
+    }
+
+    /* number of labels of visible sections */
+    int size() {
+        return sorted.size();
+    }
+
+    int tileCount() {
+        return tiles.size();
+    }
+
+    /* removes all labels */
+    void clear() {
+        sorted.clear();
+        maxWidth = 0;
+        tiles.clear();
+    }
+
+    /* forgets the labels of sections going out of view and paints the labels of the remaining sections onto the
+     * columns of tiles coming into view; sections coming into view get new tiles to be labeled */
+    void setVisible(int first, int last, int firstColumn, int lastColumn) {
+        int previousFirstColumn = firstVisibleColumn;
+        int previousLastColumn = lastVisibleColumn;
+        firstVisible = first;
+        lastVisible = last;
+        firstVisibleColumn = firstColumn;
+        lastVisibleColumn = lastColumn;
+        tiles.retain(first, last, firstColumn, lastColumn);
+
+        sorted.headSet(probe(first, Integer.MIN_VALUE)).clear();
+        sorted.tailSet(probe(last + 1, Integer.MIN_VALUE)).clear();
+
+        if (firstColumn < previousFirstColumn) paint(firstColumn, Math.min(lastColumn, previousFirstColumn - 1));
+        if (lastColumn > previousLastColumn) paint(Math.max(firstColumn, previousLastColumn + 1), lastColumn);
+    }
+
+    // paints all labels onto the tiles of the columns
+    private void paint(int firstColumn, int lastColumn) {
+        tiles.paintColumns(firstColumn, lastColumn);
+        for (Label label : sorted)
+            tiles.fillText(label.section, label.content, label.x, label.y, width(label.content));
+        tiles.paintColumns(firstVisibleColumn, lastVisibleColumn);
+    }
+
+    private Label find(long start, long end, int x, int section) {
+        for (Label label : sorted.tailSet(probe(section, x), true)) {
+            if (label.section != section || label.x != x) return null;
+            if (label.start == start && label.end == end) return label;
+        }
+        return null;
+    }
+
+    private boolean isVisible(int section) {
+        return firstVisible <= section && section <= lastVisible;
+    }
+
+    private double width(String content) {
+        Double width = widths.get(content);
+        if (width == null) {
+            measure.setText(content);
+            width = measure.getLayoutBounds().getWidth();
+            widths.put(content, width);
+        }
+        return width;
+    }
+
+    // sorts before every label of the section centered at x
+    private static Label probe(int section, int x) {
+        return new Label(0, 0, x, 0, section, Long.MIN_VALUE, null);
+    }
+
+    private static class Label {
+        // labeled bounds in domain coordinates
+        final long start;
+        final long end;
+        final int x;
+        final int y;
+        final int section;
+        final long sequence;
+        final String content;
+
+        Label(long start, long end, int x, int y, int section, long sequence, String content) {
+            this.start = start;
+            this.end = end;
+            this.x = x;
+            this.y = y;
+            this.section = section;
+            this.sequence = sequence;
+            this.content = content;
+        }
+    }
+}
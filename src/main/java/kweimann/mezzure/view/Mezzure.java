@@ -1,23 +1,23 @@
 package kweimann.mezzure.view;
 
-import javafx.scene.canvas.Canvas;
 import javafx.scene.layout.Pane;
 import kweimann.mezzure.model.Element1D;
 
 import java.util.function.Function;
 
-public class Mezzure extends Canvas {
+/* pane of canvas tiles, one or more per section, that intervals and labels are drawn onto (see MezzureDrawingContext) */
+public class Mezzure extends Pane {
 
-    final Pane root;
     final MezzureConfiguration configuration;
     Function<Element1D, String> descriptor;
 
     private final MezzureDrawingContext dc;
 
-    public Mezzure(Pane root, MezzureConfiguration configuration) {
-        super(configuration.width(), configuration.height());
-        this.root = root;
+    public Mezzure(MezzureConfiguration configuration) {
         this.configuration = configuration;
+        setMinSize(configuration.width(), configuration.height());
+        setPrefSize(configuration.width(), configuration.height());
+        setMaxSize(configuration.width(), configuration.height());
         this.dc = new MezzureDrawingContext(this);
     }
 
@@ -25,6 +25,27 @@ public class Mezzure extends Canvas {
         return dc;
     }
 
+    /* paints only the sections within the visible canvas area [minY, maxY] (e.g. the viewport of a scroll pane);
+     * sections are repainted as they come into view */
+    public void setViewport(double minY, double maxY) {
+        dc.setViewport(minY, maxY);
+    }
+
+    /* paints only the tiles within the visible canvas area [minX, maxX] x [minY, maxY]; tiles are repainted as they
+     * come into view */
+    public void setViewport(double minX, double maxX, double minY, double maxY) {
+        dc.setViewport(minX, maxX, minY, maxY);
+    }
+
+    public ViewTransform getTransform() {
+        return dc.getTransform();
+    }
+
+    /* shows the domain through the transform (e.g. after zooming or scrolling) and repaints what has been drawn */
+    public void setTransform(ViewTransform transform) {
+        dc.setTransform(transform);
+    }
+
     public void setDescriptor(Function<Element1D, String> descriptor) {
         this.descriptor = descriptor;
     }
@@ -18,6 +18,10 @@ public final class MezzureConfiguration {
     private final int distanceBetweenSections;
     private final Color intervalColor;
     private final Color pointColor;
+    // domain coordinates intervals may span and the transform they are initially shown with
+    private final long domainStart;
+    private final long domainEnd;
+    private final ViewTransform transform;
 
     private MezzureConfiguration(Builder builder) {
         this.width = builder.width;
@@ -29,6 +33,12 @@ public final class MezzureConfiguration {
         this.distanceBetweenSections = builder.distanceBetweenSections;
         this.intervalColor = builder.intervalColor;
         this.pointColor = builder.pointColor;
+        // by default the domain spans all sections with one unit per pixel
+        this.domainStart = builder.domainStart;
+        this.domainEnd = builder.domainEnd >= 0
+                ? builder.domainEnd
+                : builder.domainStart + (long) sectionWidth * new MezzureLayout(this).sectionCount();
+        this.transform = builder.transform != null ? builder.transform : new ViewTransform(domainStart, 1);
     }
 
     public int width() {
@@ -67,6 +77,18 @@ public final class MezzureConfiguration {
         return pointColor;
     }
 
+    public long domainStart() {
+        return domainStart;
+    }
+
+    public long domainEnd() {
+        return domainEnd;
+    }
+
+    public ViewTransform transform() {
+        return transform;
+    }
+
     public static Builder builder(int width, int height) {
         return new Builder(width, height);
     }
@@ -81,6 +103,9 @@ public final class MezzureConfiguration {
         private int distanceBetweenSections     = DEFAULT_DISTANCE_BETWEEN_SECTIONS;
         private Color intervalColor             = DEFAULT_INTERVAL_COLOR;
         private Color pointColor                = DEFAULT_POINT_COLOR;
+        private long domainStart                = 0;
+        private long domainEnd                  = -1;
+        private ViewTransform transform;
 
         private Builder(int width, int height) {
             this.width = width;
@@ -124,6 +149,19 @@ public final class MezzureConfiguration {
             return this;
         }
 
+        /* domain coordinates must not be negative since -1 denotes a position outside the sections */
+        public Builder domain(long domainStart, long domainEnd) {
+            if (domainStart < 0 || domainStart >= domainEnd) throw new IllegalArgumentException("bad domain");
+            this.domainStart = domainStart;
+            this.domainEnd = domainEnd;
+            return this;
+        }
+
+        public Builder transform(ViewTransform transform) {
+            this.transform = transform;
+            return this;
+        }
+
         public MezzureConfiguration build() {
             return new MezzureConfiguration(this);
         }
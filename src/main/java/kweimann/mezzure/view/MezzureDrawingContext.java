@@ -1,59 +1,222 @@
 package kweimann.mezzure.view;
 
+import javafx.animation.AnimationTimer;
 import javafx.scene.Cursor;
-import javafx.scene.canvas.GraphicsContext;
-import javafx.scene.text.Text;
 import kweimann.mezzure.model.Element1D;
 import kweimann.mezzure.model.Interval;
+import kweimann.mezzure.model.IntervalStore;
 import kweimann.mezzure.model.Point;
+import kweimann.mezzure.monitoring.MezzureMetrics;
+import kweimann.mezzure.monitoring.PaintTrace;
 
-import java.util.HashMap;
+import java.util.BitSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.Map;
+import java.util.Set;
 
 public class MezzureDrawingContext implements DrawingContext {
 
     private final Mezzure ctx;
     private final MezzureConfiguration cfg;
-    private final GraphicsContext gc;
+    private final MezzureLayout layout;
+    private final Tiles tiles;
 
     private final Point start;
     private final Point end;
-
-    private final Map<Element1D, Text> labels = new HashMap<>();
+    // elements are stored in domain coordinates and mapped onto X coordinates only when painted
+    private ViewTransform transform;
+
+    private final LabelLayer labels;
+
+    // everything drawn regardless of its visibility so that sections coming into view can be repainted
+    private final IntervalStore drawnIntervals = new IntervalStore();
+    // points are kept per X coordinate (they only mark the hover position) and dropped when the transform changes
+    private final BitSet drawnPoints;
+    // intervals and points labeled through addText so that their labels can be laid out again when the transform
+    // changes or their section comes into view; points are rare and kept as elements
+    private final IntervalStore textIntervals = new IntervalStore();
+    private final Set<Point> textPoints = new LinkedHashSet<>();
+    // slot of a cleared interval that is kept until the next operation so that redrawing the interval
+    // at another position (e.g. while dragging) only shifts the slots in between
+    private int clearedSlot = -1;
+
+    // sections and columns of tiles that are painted
+    private int firstVisible;
+    private int lastVisible;
+    private int firstVisibleColumn;
+    private int lastVisibleColumn;
+
+    // operations queued while deferred (see flush())
+    private boolean deferred;
+    private AnimationTimer flushTimer;
+    private final Map<Element1D, Pending> pendingShapes = new LinkedHashMap<>();
+    private final Map<Element1D, Pending> pendingTexts = new LinkedHashMap<>();
+    // X coordinates of points drawn or cleared since the last flush and whether they were drawn first; points are
+    // queued as bits so that marking the hover position does not allocate
+    private final BitSet pendingPoints;
+    private final BitSet pendingPointsDrawnFirst;
+    private final SectionSpans clearSpans;
+    private final SectionSpans intervalSpans;
+    private final SectionSpans pointSpans;
+
+    // drawing calls are counted if set
+    private MezzureMetrics metrics;
+    // rectangles filled or cleared so far (reported by flight recorder events)
+    private int rectangles;
 
     MezzureDrawingContext(Mezzure ctx) {
         this.ctx = ctx;
         this.cfg = ctx.configuration;
-        this.gc = ctx.getGraphicsContext2D();
-        this.start = new Point(0);
-        this.end = new Point(cfg.sectionWidth() * sectionCount());
+        this.layout = new MezzureLayout(cfg);
+        this.tiles = new Tiles(layout, 0, cfg.sectionHeight(), gc -> { });
+        this.start = new Point(cfg.domainStart());
+        this.end = new Point(cfg.domainEnd());
+        this.transform = cfg.transform();
+        // labels are only materialized as elements for the descriptor once their section is visible
+        this.labels = new LabelLayer(layout, (start, end) -> ctx.descriptor == null
+                ? null
+                : ctx.descriptor.apply(start == end ? new Point(start) : new Interval(new Point(start), new Point(end))));
+        this.drawnPoints = new BitSet(layout.length() + 1);
+        this.pendingPoints = new BitSet(layout.length() + 1);
+        this.pendingPointsDrawnFirst = new BitSet(layout.length() + 1);
+        this.lastVisible = layout.sectionCount() - 1;
+        this.lastVisibleColumn = tiles.column(cfg.width());
+        ctx.getChildren().addAll(tiles.node(), labels.node());
+        this.clearSpans = new SectionSpans(layout);
+        this.intervalSpans = new SectionSpans(layout);
+        this.pointSpans = new SectionSpans(layout);
+    }
+
+    /* queues all operations and applies them as one batch on the next pulse (or on flush()) instead of immediately */
+    public void setDeferred(boolean deferred) {
+        if (deferred && flushTimer == null) {
+            flushTimer = new AnimationTimer() {
+                @Override
+                public void handle(long now) {
+                    flush();
+                }
+            };
+        }
+        this.deferred = deferred;
+        if (!deferred) flush();
     }
 
+    public boolean isDeferred() {
+        return deferred;
+    }
+
+    /* applies queued operations; the first and the last queued operation of an element determine its net operation.
+     * all clearing is done before any drawing and rectangles of the same kind are merged within their section */
     @Override
-    public void addText(Element1D element) {
-        String content;
-        if (ctx.descriptor != null && (content = ctx.descriptor.apply(element)) != null) {
-            if (element instanceof Point) {
-                addText(content, (Point) element, true, element);
-            } else if (element instanceof Interval) {
-                addText(content, new Point(element.center()), true, element);
-            } else throw new IllegalArgumentException("element not supported");
+    public void flush() {
+        if (flushTimer != null) flushTimer.stop();
+        if (isQueueEmpty()) return;
+        PaintTrace trace = PaintTrace.start();
+        int painted = rectangles;
+
+        // the last operation of a point is the one drawnPoints remembers
+        for (int x = pendingPoints.nextSetBit(0); x >= 0; x = pendingPoints.nextSetBit(x + 1)) {
+            boolean drawn = drawnPoints.get(x);
+            if (pendingPointsDrawnFirst.get(x) != drawn) continue;
+            if (drawn) {
+                addPointSpan(pointSpans, x, true, firstVisible, lastVisible);
+            } else {
+                addPointSpan(clearSpans, x, true, firstVisible, lastVisible);
+                addPointSpan(clearSpans, x, false, firstVisible, lastVisible);
+            }
+        }
+        pendingPoints.clear();
+
+        for (Map.Entry<Element1D, Pending> entry : pendingShapes.entrySet()) {
+            Pending pending = entry.getValue();
+            // drawn and cleared again (or the other way round) within the same batch
+            if (pending.first != pending.last) continue;
+
+            Element1D element = entry.getKey();
+            if (element instanceof Interval) {
+                long start = toX(((Interval) element).start().center());
+                long end = toX(((Interval) element).end().center());
+                if (pending.last) {
+                    addIntervalSpans(intervalSpans, start, end, 0, firstVisible, lastVisible);
+                    addPointSpan(pointSpans, start, true, firstVisible, lastVisible);
+                    addPointSpan(pointSpans, end, false, firstVisible, lastVisible);
+                } else {
+                    addIntervalSpans(clearSpans, start, end, 1, firstVisible, lastVisible);
+                    addSharedSpans((Interval) element, start, end, firstVisible, lastVisible);
+                }
+            } else if (pending.last) {
+                addPointSpan(pointSpans, toX(element.center()), true, firstVisible, lastVisible);
+            } else {
+                addPointSpan(clearSpans, toX(element.center()), true, firstVisible, lastVisible);
+                addPointSpan(clearSpans, toX(element.center()), false, firstVisible, lastVisible);
+            }
         }
+        pendingShapes.clear();
+        paintSpans();
+
+        for (Map.Entry<Element1D, Pending> entry : pendingTexts.entrySet()) {
+            Pending pending = entry.getValue();
+            if (pending.first != pending.last) continue;
+            if (pending.last) showText(entry.getKey());
+            else hideText(entry.getKey());
+        }
+        pendingTexts.clear();
+        trace.finish("flush", rectangles - painted);
+    }
+
+    /* counts drawing calls and reports the number of labels and canvas tiles */
+    public void setMetrics(MezzureMetrics metrics) {
+        this.metrics = metrics;
+        if (metrics != null) {
+            metrics.setLabelCount(labels::size);
+            metrics.setNodeCount(() -> tiles.size() + labels.tileCount());
+        }
+    }
+
+    @Override
+    public void addText(Element1D element) {
+        if (metrics != null) metrics.recordAddText();
+        retainText(element, true);
+        if (deferred) queue(pendingTexts, element, true);
+        else showText(element);
     }
 
     @Override
     public void clearText(Element1D element) {
-        if (ctx.descriptor != null) {
-            Text removed = labels.remove(element);
-            if (removed != null)
-                ctx.root.getChildren().remove(removed);
-        }
+        if (metrics != null) metrics.recordClearText();
+        retainText(element, false);
+        if (deferred) queue(pendingTexts, element, false);
+        else hideText(element);
+    }
+
+    @Override
+    public void addText(long start, long end) {
+        if (metrics != null) metrics.recordAddText();
+        retainText(start, end, true);
+        if (deferred) queue(pendingTexts, new Interval(new Point(start), new Point(end)), true);
+        else showText(start, end);
+    }
+
+    @Override
+    public void clearText(long start, long end) {
+        if (metrics != null) metrics.recordClearText();
+        retainText(start, end, false);
+        if (deferred) queue(pendingTexts, new Interval(new Point(start), new Point(end)), false);
+        else hideText(start, end);
     }
 
     @Override
     public void draw(Element1D element) {
-        if (element instanceof Point) {
-            drawPoint((Point) element, true);
+        if (metrics != null) metrics.recordDraw();
+        retain(element, true);
+        if (deferred) {
+            checkSupported(element);
+            queue(pendingShapes, element, true);
+            // interval labels are queued separately so that they are kept if the interval is redrawn
+            if (element instanceof Interval) queue(pendingTexts, element, true);
+        } else if (element instanceof Point) {
+            drawPoint(toX(element.center()), true);
         } else if (element instanceof Interval) {
             drawInterval((Interval) element);
         } else throw new IllegalArgumentException("element not supported");
@@ -61,40 +224,61 @@ public class MezzureDrawingContext implements DrawingContext {
 
     @Override
     public void clear(Element1D element) {
-        if (element instanceof Point) {
-            clearPoint((Point) element);
+        if (metrics != null) metrics.recordClear();
+        retain(element, false);
+        if (deferred) {
+            checkSupported(element);
+            queue(pendingShapes, element, false);
+            if (element instanceof Interval) queue(pendingTexts, element, false);
+        } else if (element instanceof Point) {
+            clearPoint(element.center());
         } else if (element instanceof Interval) {
             clearInterval((Interval) element);
         } else throw new IllegalArgumentException("element not supported");
     }
 
     @Override
-    public void setCursor(Cursor cursor) {
-        ctx.setCursor(cursor);
+    public void drawPoint(long x) {
+        if (metrics != null) metrics.recordDraw();
+        retainPoint(toX(x), true);
+        if (deferred) {
+            queuePoint(toX(x), true);
+        } else {
+            PaintTrace trace = PaintTrace.start();
+            int painted = rectangles;
+            drawPoint(toX(x), true);
+            trace.finish("drawPoint", rectangles - painted);
+        }
     }
 
     @Override
-    public Point getPoint(int canvasX, int canvasY, boolean fitToSection) {
-        int sectionX, sectionY;
-
-        if (fitToSection) {
-            sectionX = Math.min(Math.max(0, canvasX - cfg.sectionStart()), cfg.sectionWidth());
-            sectionY = canvasY > cfg.offsetY() + cfg.distanceBetweenSections() / 2
-                    ? canvasY < cfg.height()
-                        ? sectionCount(canvasY - cfg.distanceBetweenSections() / 2)
-                        : sectionCount() - 1
-                    : 0;
+    public void clearPoint(long x) {
+        if (metrics != null) metrics.recordClear();
+        retainPoint(toX(x), false);
+        if (deferred) {
+            queuePoint(toX(x), false);
         } else {
-            if (canvasX >= cfg.sectionStart()
-                    && canvasX <= cfg.sectionStart() + cfg.sectionWidth()
-                    && canvasY > cfg.offsetY() && canvasY < cfg.height()
-                    && (canvasY - cfg.offsetY() - 1) % (cfg.sectionHeight() + cfg.distanceBetweenSections()) <= cfg.sectionHeight() - 1) {
-                sectionX = canvasX - cfg.sectionStart();
-                sectionY = ceilDiv(canvasY - cfg.offsetY(), cfg.sectionHeight() + cfg.distanceBetweenSections()) - 1;
-            } else return null;
+            PaintTrace trace = PaintTrace.start();
+            int painted = rectangles;
+            clearPoint(toX(x), true);
+            clearPoint(toX(x), false);
+            trace.finish("clearPoint", rectangles - painted);
         }
+    }
 
-        return new Point(sectionX + sectionY * cfg.sectionWidth());
+    @Override
+    public void setCursor(Cursor cursor) {
+        ctx.setCursor(cursor);
+    }
+
+    @Override
+    public long getX(int canvasX, int canvasY, boolean fitToSection) {
+        return layout.getDomainX(canvasX, canvasY, fitToSection, transform);
+    }
+
+    @Override
+    public long getLength(int pixels) {
+        return transform.toLength(pixels);
     }
 
     @Override
@@ -107,124 +291,436 @@ public class MezzureDrawingContext implements DrawingContext {
         return end;
     }
 
-    private void addText(String content, Point position, boolean preferStart, Element1D element) {
-        int x = getCanvasX(position, preferStart);
-        int y = getCanvasY(position, preferStart);
-        Text text = new Text(content);
+    /* paints only the sections within the visible canvas area [minY, maxY] from now on */
+    void setViewport(double minY, double maxY) {
+        setViewport(0, cfg.width(), minY, maxY);
+    }
 
-        text.setTranslateX(x - cfg.width() / 2);
-        text.setTranslateY(y - cfg.height() / 2 - text.getBoundsInLocal().getHeight() / 2);
+    /* paints only the tiles within the visible canvas area [minX, maxX] x [minY, maxY] from now on */
+    void setViewport(double minX, double maxX, double minY, double maxY) {
+        int period = cfg.sectionHeight() + cfg.distanceBetweenSections();
+        // include one more section on either side so that partially visible sections and labels are painted
+        int first = Math.max(0, (int) Math.floor((minY - cfg.offsetY()) / period) - 1);
+        int last = Math.min(layout.sectionCount() - 1, (int) Math.floor((maxY - cfg.offsetY()) / period) + 1);
+        int firstColumn = tiles.column(minX);
+        int lastColumn = tiles.column(maxX);
+        if (first == firstVisible && last == lastVisible && firstColumn == firstVisibleColumn && lastColumn == lastVisibleColumn)
+            return;
+
+        // queued operations are painted onto the tiles visible so far
+        flush();
+
+        int previousFirst = firstVisible;
+        int previousLast = lastVisible;
+        int previousFirstColumn = firstVisibleColumn;
+        int previousLastColumn = lastVisibleColumn;
+        firstVisible = first;
+        lastVisible = last;
+        firstVisibleColumn = firstColumn;
+        lastVisibleColumn = lastColumn;
+
+        tiles.retain(first, last, firstColumn, lastColumn);
+        labels.setVisible(first, last, firstColumn, lastColumn);
+
+        // sections that stay in view get tiles for the columns coming into view
+        int keptFirst = Math.max(first, previousFirst);
+        int keptLast = Math.min(last, previousLast);
+        if (keptFirst <= keptLast) {
+            if (firstColumn < previousFirstColumn)
+                repaint(keptFirst, keptLast, firstColumn, Math.min(lastColumn, previousFirstColumn - 1));
+            if (lastColumn > previousLastColumn)
+                repaint(keptFirst, keptLast, Math.max(firstColumn, previousLastColumn + 1), lastColumn);
+        }
 
-        labels.put(element, text);
+        // sections coming into view get new tiles
+        if (first < previousFirst) repaint(first, Math.min(last, previousFirst - 1));
+        if (last > previousLast) repaint(Math.max(first, previousLast + 1), last);
+        if (first < previousFirst) showTexts(first, Math.min(last, previousFirst - 1));
+        if (last > previousLast) showTexts(Math.max(first, previousLast + 1), last);
+    }
 
-        ctx.root.getChildren().add(text);
+    ViewTransform getTransform() {
+        return transform;
     }
 
-    private void drawInterval(Interval interval) {
-        int startY = getSectionY(interval.start(), true);
-        int endY = getSectionY(interval.end(), false);
+    /* shows the domain through the transform from now on; the visible sections and their labels are laid out again
+     * from what has been drawn */
+    void setTransform(ViewTransform transform) {
+        if (transform.equals(this.transform)) return;
+
+        // queued operations are painted with the previous transform
+        flush();
+
+        this.transform = transform;
+        drawnPoints.clear();
+        tiles.clear();
+        repaint(firstVisible, lastVisible);
+
+        labels.clear();
+        showTexts(firstVisible, lastVisible);
+    }
+
+    // labels the drawn intervals and the intervals and points labeled through addText whose labels lie within
+    // sections fromY to toY
+    private void showTexts(int fromY, int toY) {
+        if (ctx.descriptor == null) return;
+        removeClearedInterval();
+
+        // a pixel's worth of domain on either side covers labels centered within the border pixels
+        long from = transform.toDomain(fromY * cfg.sectionWidth()) - transform.toLength(1);
+        long to = transform.toDomain((toY + 1) * cfg.sectionWidth()) + transform.toLength(1);
+        showTexts(drawnIntervals, from, to, fromY, toY);
+        showTexts(textIntervals, from, to, fromY, toY);
+        for (Point point : textPoints)
+            showText(point.center(), point.center(), fromY, toY);
+    }
+
+    private void showTexts(IntervalStore store, long from, long to, int fromY, int toY) {
+        for (int slot = store.firstEndingAtOrAfter(from); slot < store.size() && store.start(slot) <= to; slot++)
+            showText(store.start(slot), store.end(slot), fromY, toY);
+    }
+
+    private void showText(Element1D element) {
+        if (element instanceof Point) showText(element.center(), element.center());
+        else if (element instanceof Interval) showText(((Interval) element).start().center(), ((Interval) element).end().center());
+        else throw new IllegalArgumentException("element not supported");
+    }
+
+    private void hideText(Element1D element) {
+        if (element instanceof Point) hideText(element.center(), element.center());
+        else if (element instanceof Interval) hideText(((Interval) element).start().center(), ((Interval) element).end().center());
+        else throw new IllegalArgumentException("element not supported");
+    }
+
+    // labels are given by their bounds in domain coordinates (start == end for a point)
+
+    private void showText(long start, long end) {
+        showText(start, end, firstVisible, lastVisible);
+    }
+
+    private void showText(long start, long end, int fromY, int toY) {
+        if (ctx.descriptor == null) return;
+        long x = toX(start + (end - start) / 2);
+        // labels centered outside the view are not shown
+        if (!isInView(x)) return;
+        int Y = getSectionY((int) x, true);
+        if (fromY <= Y && Y <= toY) labels.add(start, end, getCanvasX((int) x, true), Y);
+    }
 
-        gc.setFill(cfg.intervalColor());
+    private void hideText(long start, long end) {
+        if (ctx.descriptor == null) return;
+        long x = toX(start + (end - start) / 2);
+        if (isInView(x)) labels.remove(start, end, getCanvasX((int) x, true), getSectionY((int) x, true));
+    }
 
-        for (int Y = startY; Y <= endY; Y++) {
+    private void drawInterval(Interval interval) {
+        PaintTrace trace = PaintTrace.start();
+        int painted = rectangles;
+        long intervalStart = toX(interval.start().center());
+        long intervalEnd = toX(interval.end().center());
+        int start = clamp(intervalStart);
+        int end = clamp(intervalEnd);
+        int startY = getSectionY(start, true);
+        int endY = getSectionY(end, false);
+        // intervals outside the view are only labeled
+        if (intervalEnd < 0 || intervalStart > layout.length()) endY = startY - 1;
+
+        for (int Y = Math.max(startY, firstVisible); Y <= Math.min(endY, lastVisible); Y++) {
             int x = Y == startY
-                    ? getCanvasX(interval.start(), true)
-                    : getCanvasX(start, true);
+                    ? getCanvasX(start, true)
+                    : getCanvasX(0, true);
             int width = Y == endY
-                    ? getCanvasX(interval.end(), false) - x
+                    ? getCanvasX(end, false) - x
                     : Y == startY
                         ? cfg.sectionStart() + cfg.sectionWidth() - x
                         : cfg.sectionWidth();
 
-            gc.fillRect(
+            tiles.fillRect(
+                    Y,
                     x,
-                    cfg.offsetY() + Y * (cfg.sectionHeight() + cfg.distanceBetweenSections()),
+                    layout.getSectionTop(Y),
                     width,
-                    cfg.sectionHeight());
+                    cfg.sectionHeight(),
+                    cfg.intervalColor());
+            rectangles++;
         }
 
-        addText(interval);
-        drawPoint(interval.start(), true);
-        drawPoint(interval.end(), false);
+        showText(interval);
+        drawPoint(intervalStart, true);
+        drawPoint(intervalEnd, false);
+        trace.finish("drawInterval", rectangles - painted);
     }
 
     private void clearInterval(Interval interval) {
+        PaintTrace trace = PaintTrace.start();
+        int painted = rectangles;
         // whole interval is cleared although the first one pixel wide line is explicitly omitted (bug?)
-        int startY = getSectionY(interval.start(), true);
-        int endY = getSectionY(interval.end(), false);
-
-        for (int Y = startY; Y <= endY; Y++) {
+        long intervalStart = toX(interval.start().center());
+        long intervalEnd = toX(interval.end().center());
+        int start = clamp(intervalStart);
+        int end = clamp(intervalEnd);
+        int startY = getSectionY(start, true);
+        int endY = getSectionY(end, false);
+        if (intervalEnd < 0 || intervalStart > layout.length()) endY = startY - 1;
+
+        for (int Y = Math.max(startY, firstVisible); Y <= Math.min(endY, lastVisible); Y++) {
             int x = Y == startY
-                    ? getCanvasX(interval.start(), true)
-                    : getCanvasX(start, true);
+                    ? getCanvasX(start, true)
+                    : getCanvasX(0, true);
             int width = Y == endY
-                    ? getCanvasX(interval.end(), false) - x
+                    ? getCanvasX(end, false) - x
                     : Y == startY
                         ? cfg.sectionStart() + cfg.sectionWidth() - x
                         : cfg.sectionWidth();
 
-            gc.clearRect(
+            if (tiles.clearRect(
+                    Y,
                     x + 1,
-                    cfg.offsetY() + Y * (cfg.sectionHeight() + cfg.distanceBetweenSections()),
+                    layout.getSectionTop(Y),
                     width,
-                    cfg.sectionHeight());
+                    cfg.sectionHeight()))
+                rectangles++;
         }
 
-        clearText(interval);
-        clearPoint(interval.end(), false);
+        hideText(interval);
+        clearPoint(intervalEnd, false);
+        addSharedSpans(interval, intervalStart, intervalEnd, firstVisible, lastVisible);
+        paintSpans();
+        trace.finish("clearInterval", rectangles - painted);
     }
 
-    private void drawPoint(Point point, boolean preferStart) {
+    // points are given as X coordinates and skipped if they lie outside the view
+
+    private void drawPoint(long pointX, boolean preferStart) {
+        if (!isInView(pointX)) return;
+        int point = (int) pointX;
+        int Y = getSectionY(point, preferStart);
+        if (!isVisible(Y)) return;
         int x = getCanvasX(point, preferStart);
         int y = getCanvasY(point, preferStart);
-        gc.setFill(cfg.pointColor());
-        gc.fillRect(x, y, 1, cfg.sectionHeight());
+        tiles.fillRect(Y, x, y, 1, cfg.sectionHeight(), cfg.pointColor());
+        rectangles++;
     }
 
-    private void clearPoint(Point point) {
-        clearPoint(point, true);
-        clearPoint(point, false);
-    }
-
-    private void clearPoint(Point point, boolean preferStart) {
+    private void clearPoint(long pointX, boolean preferStart) {
+        if (!isInView(pointX)) return;
+        int point = (int) pointX;
+        int Y = getSectionY(point, preferStart);
+        if (!isVisible(Y)) return;
         int x = getCanvasX(point, preferStart);
         int y = getCanvasY(point, preferStart);
-        gc.clearRect(x, y, 1, cfg.sectionHeight());
+        if (tiles.clearRect(Y, x, y, 1, cfg.sectionHeight())) rectangles++;
+    }
+
+    private void queue(Map<Element1D, Pending> pending, Element1D element, boolean draw) {
+        if (isQueueEmpty()) flushTimer.start();
+        Pending queued = pending.get(element);
+        if (queued == null) pending.put(element, new Pending(draw));
+        else queued.last = draw;
+    }
+
+    // points outside the view are never painted and thus not queued
+    private void queuePoint(long pointX, boolean draw) {
+        if (!isInView(pointX)) return;
+        if (isQueueEmpty()) flushTimer.start();
+        int x = (int) pointX;
+        if (!pendingPoints.get(x)) {
+            pendingPoints.set(x);
+            pendingPointsDrawnFirst.set(x, draw);
+        }
+    }
+
+    private boolean isQueueEmpty() {
+        return pendingShapes.isEmpty() && pendingTexts.isEmpty() && pendingPoints.isEmpty();
+    }
+
+    private void retain(Element1D element, boolean drawn) {
+        if (element instanceof Point) {
+            retainPoint(toX(element.center()), drawn);
+        } else if (element instanceof Interval) {
+            long start = ((Interval) element).start().center();
+            long end = ((Interval) element).end().center();
+
+            if (drawn) {
+                int slot = drawnIntervals.indexOf(start);
+                if (slot < 0) slot = clearedSlot;
+                if (slot == clearedSlot) clearedSlot = -1;
+                if (slot >= 0) drawnIntervals.replace(slot, start, end);
+                else drawnIntervals.insert(start, end);
+                removeClearedInterval();
+            } else {
+                removeClearedInterval();
+                clearedSlot = drawnIntervals.indexOf(start, end);
+            }
+        }
+    }
+
+    private void retainText(Element1D element, boolean labeled) {
+        if (element instanceof Point) {
+            if (labeled) textPoints.add((Point) element);
+            else textPoints.remove(element);
+        } else if (element instanceof Interval) {
+            retainText(((Interval) element).start().center(), ((Interval) element).end().center(), labeled);
+        } else throw new IllegalArgumentException("element not supported");
+    }
+
+    private void retainText(long start, long end, boolean labeled) {
+        int slot = textIntervals.indexOf(start);
+        if (labeled) {
+            if (slot >= 0) textIntervals.replace(slot, start, end);
+            else textIntervals.insert(start, end);
+        } else if (slot >= 0 && textIntervals.end(slot) == end) {
+            textIntervals.remove(slot);
+        }
+    }
+
+    private void retainPoint(long x, boolean drawn) {
+        if (isInView(x)) drawnPoints.set((int) x, drawn);
+    }
+
+    private void removeClearedInterval() {
+        if (clearedSlot >= 0) {
+            drawnIntervals.remove(clearedSlot);
+            clearedSlot = -1;
+        }
+    }
+
+    private boolean isVisible(int sectionY) {
+        return firstVisible <= sectionY && sectionY <= lastVisible;
+    }
+
+    // returns X coordinate of the domain coordinate (which may lie outside the view)
+    private long toX(long x) {
+        return transform.toPixel(x);
+    }
+
+    private boolean isInView(long x) {
+        return 0 <= x && x <= layout.length();
+    }
+
+    private int clamp(long x) {
+        return (int) Math.min(Math.max(x, 0), layout.length());
+    }
+
+    // paints the columns of sections fromY to toY onto their new tiles
+    private void repaint(int fromY, int toY, int firstColumn, int lastColumn) {
+        tiles.paintColumns(firstColumn, lastColumn);
+        repaint(fromY, toY);
+        tiles.paintColumns(firstVisibleColumn, lastVisibleColumn);
+    }
+
+    // paints sections fromY to toY onto their new tiles
+    private void repaint(int fromY, int toY) {
+        PaintTrace trace = PaintTrace.start();
+        int painted = rectangles;
+        removeClearedInterval();
+
+        int from = fromY * cfg.sectionWidth();
+        int to = (toY + 1) * cfg.sectionWidth();
+        // a pixel's worth of domain on either side covers intervals ending or starting within the border pixels
+        for (int slot = drawnIntervals.firstEndingAtOrAfter(transform.toDomain(from) - transform.toLength(1));
+             slot < drawnIntervals.size() && drawnIntervals.start(slot) <= transform.toDomain(to) + transform.toLength(1);
+             slot++) {
+            long start = toX(drawnIntervals.start(slot));
+            long end = toX(drawnIntervals.end(slot));
+            addIntervalSpans(intervalSpans, start, end, 0, fromY, toY);
+            addPointSpan(pointSpans, start, true, fromY, toY);
+            addPointSpan(pointSpans, end, false, fromY, toY);
+        }
+        for (int x = drawnPoints.nextSetBit(Math.max(0, from - 1)); x >= 0 && x <= to + 1; x = drawnPoints.nextSetBit(x + 1))
+            addPointSpan(pointSpans, x, true, fromY, toY);
+
+        paintSpans();
+        trace.finish("repaint", rectangles - painted);
     }
 
-    private int getSectionX(Point point, boolean preferStart) {
-        return preferStart && !point.equals(end)
-                ? point.center() % cfg.sectionWidth()
-                : ((point.center() - 1) % cfg.sectionWidth()) + 1;
+    // clears before it fills so that no rectangle is filled twice
+    private void paintSpans() {
+        rectangles += clearSpans.clear(tiles);
+        rectangles += intervalSpans.fill(tiles, cfg.intervalColor());
+        rectangles += pointSpans.fill(tiles, cfg.pointColor());
     }
 
-    private int getSectionY(Point point, boolean preferStart) {
-        return preferStart && !point.equals(end)
-                ? point.center() / cfg.sectionWidth()
-                : Math.max(0, point.center() - 1) / cfg.sectionWidth();
+    // adds the rectangles of the interval (given as X coordinates) within sections fromY to toY; clearing starts
+    // one pixel right of the interval's start like clearInterval does
+    private void addIntervalSpans(SectionSpans spans, long intervalStart, long intervalEnd, int offset, int fromY, int toY) {
+        if (intervalEnd < 0 || intervalStart > layout.length()) return;
+        int start = clamp(intervalStart);
+        int end = clamp(intervalEnd);
+        int startY = getSectionY(start, true);
+        int endY = getSectionY(end, false);
+
+        for (int Y = Math.max(startY, fromY); Y <= Math.min(endY, toY); Y++) {
+            int x = Y == startY
+                    ? getCanvasX(start, true)
+                    : getCanvasX(0, true);
+            int width = Y == endY
+                    ? getCanvasX(end, false) - x
+                    : Y == startY
+                        ? cfg.sectionStart() + cfg.sectionWidth() - x
+                        : cfg.sectionWidth();
+
+            spans.add(Y, x + offset, width);
+        }
     }
 
-    private int getCanvasX(Point point, boolean preferStart) {
-        return cfg.sectionStart() + getSectionX(point, preferStart);
+    // adds the parts of drawn intervals and points within the pixels cleared for the interval (given as X
+    // coordinates) from one right of its start to its end; once a pixel covers several domain units the neighbours
+    // of an interval may share its start or end pixel and would otherwise be erased along with it
+    private void addSharedSpans(Interval interval, long intervalStart, long intervalEnd, int fromY, int toY) {
+        long from = intervalStart + 1;
+        long to = intervalEnd;
+        for (int slot = drawnIntervals.firstEndingAtOrAfter(interval.start().center() - transform.toLength(1));
+             slot < drawnIntervals.size() && drawnIntervals.start(slot) <= interval.end().center() + transform.toLength(1);
+             slot++) {
+            if (drawnIntervals.start(slot) == interval.start().center() && drawnIntervals.end(slot) == interval.end().center())
+                continue;
+            long start = toX(drawnIntervals.start(slot));
+            long end = toX(drawnIntervals.end(slot));
+            // an interval fills the pixels from its start to one left of its end
+            if (Math.max(start, from) < Math.min(end, to + 1))
+                addIntervalSpans(intervalSpans, Math.max(start, from), Math.min(end, to + 1), 0, fromY, toY);
+            if (from <= start && start <= to) addPointSpan(pointSpans, start, true, fromY, toY);
+            if (from <= end && end <= to) addPointSpan(pointSpans, end, false, fromY, toY);
+        }
+        if (to < 0 || from > layout.length()) return;
+        for (int x = drawnPoints.nextSetBit(clamp(from)); x >= 0 && x <= to; x = drawnPoints.nextSetBit(x + 1))
+            addPointSpan(pointSpans, x, true, fromY, toY);
+    }
+
+    private void addPointSpan(SectionSpans spans, long pointX, boolean preferStart, int fromY, int toY) {
+        if (!isInView(pointX)) return;
+        int point = (int) pointX;
+        int Y = getSectionY(point, preferStart);
+        if (fromY <= Y && Y <= toY)
+            spans.add(Y, getCanvasX(point, preferStart), 1);
     }
 
-    private int getCanvasY(Point point, boolean preferStart) {
-        return cfg.offsetY() + getSectionY(point, preferStart) * (cfg.sectionHeight() + cfg.distanceBetweenSections());
+    private static void checkSupported(Element1D element) {
+        if (!(element instanceof Point) && !(element instanceof Interval))
+            throw new IllegalArgumentException("element not supported");
     }
 
-    private int sectionCount() {
-        return sectionCount(cfg.height());
+    private int getSectionY(int point, boolean preferStart) {
+        return layout.getSectionY(point, preferStart);
     }
 
-    private int sectionCount(int height) {
-        return height > cfg.offsetY()
-                ? (height - cfg.offsetY() - 1) % (cfg.sectionHeight() + cfg.distanceBetweenSections()) >= cfg.sectionHeight() - 1
-                    ? ceilDiv(height - cfg.offsetY(), cfg.sectionHeight() + cfg.distanceBetweenSections())
-                    : (height - cfg.offsetY()) / (cfg.sectionHeight() + cfg.distanceBetweenSections())
-                : 0;
+    private int getCanvasX(int point, boolean preferStart) {
+        return layout.getCanvasX(point, preferStart);
     }
 
-    private static int ceilDiv(int x, int n) {
-        return (x + n - 1) / n;
+    private int getCanvasY(int point, boolean preferStart) {
+        return layout.getCanvasY(point, preferStart);
+    }
+
+    private static class Pending {
+        // true if the element is drawn, false if it is cleared
+        final boolean first;
+        boolean last;
+
+        Pending(boolean draw) {
+            this.first = draw;
+            this.last = draw;
+        }
     }
 }
@@ -0,0 +1,100 @@
+package kweimann.mezzure.view;
+
+/* maps X coordinates onto the sections of the canvas and back; X coordinates run from 0 to length() and show domain
+ * coordinates through a ViewTransform */
+public final class MezzureLayout {
+
+    private final MezzureConfiguration cfg;
+    private final int sectionCount;
+
+    public MezzureLayout(MezzureConfiguration cfg) {
+        this.cfg = cfg;
+        this.sectionCount = sectionCount(cfg.height());
+    }
+
+    public MezzureConfiguration configuration() {
+        return cfg;
+    }
+
+    public int sectionCount() {
+        return sectionCount;
+    }
+
+    /* returns the largest X coordinate */
+    public int length() {
+        return cfg.sectionWidth() * sectionCount;
+    }
+
+    /* returns X coordinate of the canvas position or -1 if it does not lie within any section */
+    public int getX(int canvasX, int canvasY, boolean fitToSection) {
+        int sectionX, sectionY;
+
+        if (fitToSection) {
+            sectionX = Math.min(Math.max(0, canvasX - cfg.sectionStart()), cfg.sectionWidth());
+            sectionY = canvasY > cfg.offsetY() + cfg.distanceBetweenSections() / 2
+                    ? canvasY < cfg.height()
+                        ? sectionCount(canvasY - cfg.distanceBetweenSections() / 2)
+                        : sectionCount - 1
+                    : 0;
+        } else {
+            if (canvasX >= cfg.sectionStart()
+                    && canvasX <= cfg.sectionStart() + cfg.sectionWidth()
+                    && canvasY > cfg.offsetY() && canvasY < cfg.height()
+                    && (canvasY - cfg.offsetY() - 1) % (cfg.sectionHeight() + cfg.distanceBetweenSections()) <= cfg.sectionHeight() - 1) {
+                sectionX = canvasX - cfg.sectionStart();
+                sectionY = ceilDiv(canvasY - cfg.offsetY(), cfg.sectionHeight() + cfg.distanceBetweenSections()) - 1;
+            } else return -1;
+        }
+
+        return sectionX + sectionY * cfg.sectionWidth();
+    }
+
+    /* returns domain coordinate shown at the canvas position or -1 if it does not lie within any section or outside
+     * the domain; positions beyond the domain are moved onto its border if fitToSection is set */
+    public long getDomainX(int canvasX, int canvasY, boolean fitToSection, ViewTransform transform) {
+        int x = getX(canvasX, canvasY, fitToSection);
+        if (x < 0) return -1;
+        long domainX = transform.toDomain(x);
+        if (fitToSection) return Math.min(Math.max(domainX, cfg.domainStart()), cfg.domainEnd());
+        return cfg.domainStart() <= domainX && domainX <= cfg.domainEnd() ? domainX : -1;
+    }
+
+    /* a point on the border between two sections lies at the end of the first one unless preferStart is set */
+
+    public int getSectionX(int x, boolean preferStart) {
+        return preferStart && x != length()
+                ? x % cfg.sectionWidth()
+                : ((x - 1) % cfg.sectionWidth()) + 1;
+    }
+
+    public int getSectionY(int x, boolean preferStart) {
+        return preferStart && x != length()
+                ? x / cfg.sectionWidth()
+                : Math.max(0, x - 1) / cfg.sectionWidth();
+    }
+
+    public int getCanvasX(int x, boolean preferStart) {
+        return cfg.sectionStart() + getSectionX(x, preferStart);
+    }
+
+    public int getCanvasY(int x, boolean preferStart) {
+        return getSectionTop(getSectionY(x, preferStart));
+    }
+
+    /* returns canvas Y coordinate of the section's top border */
+    public int getSectionTop(int sectionY) {
+        return cfg.offsetY() + sectionY * (cfg.sectionHeight() + cfg.distanceBetweenSections());
+    }
+
+    private int sectionCount(int height) {
+        return height > cfg.offsetY()
+                ? (height - cfg.offsetY() - 1) % (cfg.sectionHeight() + cfg.distanceBetweenSections()) >= cfg.sectionHeight() - 1
+                    ? ceilDiv(height - cfg.offsetY(), cfg.sectionHeight() + cfg.distanceBetweenSections())
+                    : (height - cfg.offsetY()) / (cfg.sectionHeight() + cfg.distanceBetweenSections())
+                : 0;
+    }
+
+    private static int ceilDiv(int x, int n) {
+        return (x + n - 1) / n;
+    }
+}
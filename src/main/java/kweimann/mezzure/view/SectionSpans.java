@@ -0,0 +1,79 @@
+package kweimann.mezzure.view;
+
+import javafx.scene.paint.Paint;
+
+import java.util.Arrays;
+
+/* horizontal spans within the sections of the canvas, each one as high as a section;
+ * overlapping and touching spans of a section are merged into a single rectangle when painted */
+final class SectionSpans {
+
+    private final MezzureLayout layout;
+
+    // spans per section packed as (canvas start << 32 | canvas end) so that sorting orders them by their start
+    private final long[][] spans;
+    private final int[] sizes;
+    private boolean empty = true;
+
+    SectionSpans(MezzureLayout layout) {
+        this.layout = layout;
+        this.spans = new long[layout.sectionCount()][8];
+        this.sizes = new int[layout.sectionCount()];
+    }
+
+    void add(int sectionY, int canvasX, int width) {
+        if (width <= 0 || sectionY < 0 || sectionY >= spans.length) return;
+        if (sizes[sectionY] == spans[sectionY].length)
+            spans[sectionY] = Arrays.copyOf(spans[sectionY], sizes[sectionY] * 2);
+        spans[sectionY][sizes[sectionY]++] = (long) canvasX << 32 | (canvasX + width) & 0xFFFFFFFFL;
+        empty = false;
+    }
+
+    boolean isEmpty() {
+        return empty;
+    }
+
+    /* clears the merged rectangles and removes all spans; returns the number of rectangles */
+    int clear(Tiles tiles) {
+        return paint(tiles, null);
+    }
+
+    /* fills the merged rectangles and removes all spans; returns the number of rectangles */
+    int fill(Tiles tiles, Paint paint) {
+        return paint(tiles, paint);
+    }
+
+    private int paint(Tiles tiles, Paint fill) {
+        if (empty) return 0;
+        int rectangles = 0;
+        int height = layout.configuration().sectionHeight();
+
+        for (int Y = 0; Y < spans.length; Y++) {
+            if (sizes[Y] == 0) continue;
+
+            long[] section = spans[Y];
+            Arrays.sort(section, 0, sizes[Y]);
+
+            int top = layout.getSectionTop(Y);
+
+            int start = (int) (section[0] >> 32);
+            int end = (int) section[0];
+            for (int i = 1; i <= sizes[Y]; i++) {
+                if (i < sizes[Y] && (int) (section[i] >> 32) <= end) {
+                    end = Math.max(end, (int) section[i]);
+                    continue;
+                }
+                // parts of sections without a tile have nothing to clear
+                if (fill != null) tiles.fillRect(Y, start, top, end - start, height, fill);
+                if (fill != null || tiles.clearRect(Y, start, top, end - start, height)) rectangles++;
+                if (i < sizes[Y]) {
+                    start = (int) (section[i] >> 32);
+                    end = (int) section[i];
+                }
+            }
+            sizes[Y] = 0;
+        }
+        empty = true;
+        return rectangles;
+    }
+}
@@ -0,0 +1,159 @@
+package kweimann.mezzure.view;
+
+import javafx.scene.Group;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.paint.Paint;
+
+import java.util.function.Consumer;
+
+/* canvases of at most TILE_WIDTH pixels per section instead of a single canvas spanning all sections so that no
+ * texture grows with the number of sections or the width of the canvas; a tile is created once its part of the
+ * section is painted while in view and dropped once it goes out of view. shapes are given in canvas coordinates and
+ * painted onto every tile they reach */
+final class Tiles {
+    static final int TILE_WIDTH = 2048;
+
+    private final MezzureLayout layout;
+    private final Group group = new Group();
+    // each tile reaches `above` pixels above the top of its section
+    private final double above;
+    private final double height;
+    private final Consumer<GraphicsContext> setup;
+
+    private final int columns;
+    // tiles by section * columns + column
+    private final Tile[] tiles;
+
+    // columns that are painted (see paintColumns)
+    private int firstColumn;
+    private int lastColumn;
+
+    /* `setup` prepares the graphics context of every new tile */
+    Tiles(MezzureLayout layout, double above, double height, Consumer<GraphicsContext> setup) {
+        this.layout = layout;
+        this.above = above;
+        this.height = height;
+        this.setup = setup;
+        this.columns = Math.max(1, (layout.configuration().width() + TILE_WIDTH - 1) / TILE_WIDTH);
+        this.tiles = new Tile[layout.sectionCount() * columns];
+        this.lastColumn = columns - 1;
+    }
+
+    /* the node holding all tiles */
+    Group node() {
+        return group;
+    }
+
+    /* returns the column of tiles holding canvas X coordinate x (clamped to the canvas) */
+    int column(double x) {
+        return Math.min(Math.max((int) Math.floor(x / TILE_WIDTH), 0), columns - 1);
+    }
+
+    /* paints only onto tiles of columns first to last from now on (e.g. only those coming into view) */
+    void paintColumns(int first, int last) {
+        firstColumn = first;
+        lastColumn = last;
+    }
+
+    void fillRect(int sectionY, double x, double y, double width, double height, Paint fill) {
+        for (int column = first(x); column <= last(x + width); column++) {
+            GraphicsContext gc = get(sectionY, column);
+            gc.setFill(fill);
+            gc.fillRect(x, y, width, height);
+        }
+    }
+
+    /* returns false if no tile has been cleared (i.e. there was nothing to clear) */
+    boolean clearRect(int sectionY, double x, double y, double width, double height) {
+        boolean cleared = false;
+        for (int column = first(x); column <= last(x + width); column++) {
+            Tile tile = tiles[sectionY * columns + column];
+            if (tile == null) continue;
+            tile.getGraphicsContext2D().clearRect(x, y, width, height);
+            cleared = true;
+        }
+        return cleared;
+    }
+
+    /* fills the text horizontally centered at x as set up for the tiles (the text is `width` pixels wide) */
+    void fillText(int sectionY, String text, double x, double y, double width) {
+        for (int column = first(x - width / 2 - 1); column <= last(x + width / 2 + 1); column++)
+            get(sectionY, column).fillText(text, x, y);
+    }
+
+    /* lets `painter` paint within the rectangle onto every existing tile it reaches */
+    void clip(int sectionY, double x, double y, double width, double height, Consumer<GraphicsContext> painter) {
+        for (int column = first(x); column <= last(x + width); column++) {
+            Tile tile = tiles[sectionY * columns + column];
+            if (tile == null) continue;
+            GraphicsContext gc = tile.getGraphicsContext2D();
+            gc.save();
+            gc.beginPath();
+            gc.rect(x, y, width, height);
+            gc.clip();
+            painter.accept(gc);
+            gc.restore();
+        }
+    }
+
+    /* number of tiles currently in the scene graph */
+    int size() {
+        return group.getChildren().size();
+    }
+
+    /* drops all tiles */
+    void clear() {
+        retain(0, -1, firstColumn, lastColumn);
+    }
+
+    /* drops all tiles of sections before `first` or after `last` or of columns before `firstColumn` or after
+     * `lastColumn` and paints only the columns in between from now on; only existing tiles are visited */
+    void retain(int first, int last, int firstColumn, int lastColumn) {
+        paintColumns(firstColumn, lastColumn);
+        group.getChildren().removeIf(node -> {
+            Tile tile = (Tile) node;
+            if (first <= tile.section && tile.section <= last && firstColumn <= tile.column && tile.column <= lastColumn)
+                return false;
+            tiles[tile.section * columns + tile.column] = null;
+            return true;
+        });
+    }
+
+    // first and last painted column reached by [from, to)
+
+    private int first(double from) {
+        return Math.max(column(from), firstColumn);
+    }
+
+    private int last(double to) {
+        return Math.min(column(Math.ceil(to) - 1), lastColumn);
+    }
+
+    // returns the graphics context of the tile (creating it if necessary) in canvas coordinates
+    private GraphicsContext get(int sectionY, int column) {
+        Tile tile = tiles[sectionY * columns + column];
+        if (tile == null) {
+            double left = column * TILE_WIDTH;
+            double top = layout.getSectionTop(sectionY) - above;
+            tile = new Tile(sectionY, column, Math.min(TILE_WIDTH, layout.configuration().width() - left), height);
+            tile.relocate(left, top);
+            tile.getGraphicsContext2D().translate(-left, -top);
+            setup.accept(tile.getGraphicsContext2D());
+            tiles[sectionY * columns + column] = tile;
+            group.getChildren().add(tile);
+        }
+        return tile.getGraphicsContext2D();
+    }
+
+    private static final class Tile extends Canvas {
+        final int section;
+        final int column;
+
+        Tile(int section, int column, double width, double height) {
+            super(width, height);
+            this.section = section;
+            this.column = column;
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package kweimann.mezzure.view;
+
+/* maps domain coordinates (e.g. sample indices or nanoseconds) onto X coordinates of the canvas and back;
+ * X coordinate 0 shows domain coordinate start() and each X coordinate covers unitsPerPixel() domain units */
+public final class ViewTransform {
+
+    private final long start;
+    private final double unitsPerPixel;
+
+    public ViewTransform(long start, double unitsPerPixel) {
+        if (!(unitsPerPixel > 0) || Double.isInfinite(unitsPerPixel))
+            throw new IllegalArgumentException("bad units per pixel");
+        this.start = start;
+        this.unitsPerPixel = unitsPerPixel;
+    }
+
+    /* one domain unit per pixel starting at domain coordinate 0 */
+    public static ViewTransform identity() {
+        return new ViewTransform(0, 1);
+    }
+
+    public long start() {
+        return start;
+    }
+
+    public double unitsPerPixel() {
+        return unitsPerPixel;
+    }
+
+    /* returns the X coordinate showing the domain coordinate (may lie outside the canvas) */
+    public long toPixel(long x) {
+        return (long) Math.floor((x - start) / unitsPerPixel);
+    }
+
+    /* returns the domain coordinate shown at the X coordinate */
+    public long toDomain(long pixel) {
+        return start + Math.round(pixel * unitsPerPixel);
+    }
+
+    /* returns the domain length covered by the number of pixels (at least one unit) */
+    public long toLength(int pixels) {
+        return Math.max(1, (long) Math.ceil(pixels * unitsPerPixel));
+    }
+
+    /* returns the transform showing `factor` times as many units per pixel while keeping `anchor` at its X coordinate */
+    public ViewTransform zoom(double factor, long anchor) {
+        double unitsPerPixel = this.unitsPerPixel * factor;
+        return new ViewTransform(anchor - Math.round((anchor - start) / this.unitsPerPixel * unitsPerPixel), unitsPerPixel);
+    }
+
+    /* returns the transform moved n domain units right if n >= 0 or n units left if n < 0 */
+    public ViewTransform scroll(long n) {
+        return new ViewTransform(start + n, unitsPerPixel);
+    }
+
+    @Override
+    public boolean equals(Object that) {
+        return that instanceof ViewTransform
+                && this.start == ((ViewTransform) that).start
+                && this.unitsPerPixel == ((ViewTransform) that).unitsPerPixel;
+    }
+
+    @Override
+    public int hashCode() {
+        int result = 1;
+        result = 37 * result + Long.hashCode(start);
+        result = 37 * result + Double.hashCode(unitsPerPixel);
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("(%d, %s units/px)", start, unitsPerPixel);
+    }
+}
@@ -0,0 +1,149 @@
+package kweimann.mezzure.controller;
+
+import javafx.event.EventType;
+import javafx.scene.input.MouseButton;
+import javafx.scene.input.MouseEvent;
+import kweimann.mezzure.model.Interval;
+import kweimann.mezzure.model.Point;
+import kweimann.mezzure.session.CountingDrawingContext;
+import kweimann.mezzure.view.MezzureConfiguration;
+import kweimann.mezzure.view.MezzureLayout;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/* hovering and dragging must not allocate once the JIT has warmed up, whether a drag tick changes the dragged
+ * interval or not; no listener is set since intervals are materialized for listeners only */
+class MezzureEventHandlerAllocationTest {
+    // intervals [i * DISTANCE + OFFSET, i * DISTANCE + OFFSET + LENGTH]; long enough to grab them in the middle
+    private static final int INTERVALS = 1000;
+    private static final int DISTANCE = 100;
+    private static final int OFFSET = 20;
+    private static final int LENGTH = 30;
+
+    private static final int EVENTS_PER_ROUND = 100_000;
+    private static final int WARM_UP_ROUNDS = 20;
+    private static final int MEASURED_ROUNDS = 5;
+
+    private MezzureLayout layout;
+    private MezzureEventHandler handler;
+
+    @BeforeEach
+    void setUp() {
+        // one domain unit per pixel on sections of 1000 units
+        MezzureConfiguration configuration = MezzureConfiguration
+                .builder(1100, 50 + (INTERVALS * DISTANCE / 1000) * 100)
+                .sectionStart(50)
+                .sectionWidth(1000)
+                .sectionHeight(50)
+                .distanceBetweenSections(50)
+                .offsetY(50)
+                .domain(0, INTERVALS * DISTANCE)
+                .build();
+        layout = new MezzureLayout(configuration);
+        handler = new MezzureEventHandler(new CountingDrawingContext(layout));
+        List<Interval> intervals = new ArrayList<>(INTERVALS);
+        for (int i = 0; i < INTERVALS; i++)
+            intervals.add(new Interval(new Point(start(i)), new Point(start(i) + LENGTH)));
+        handler.addIntervals(intervals);
+    }
+
+    @Test
+    void hoverDoesNotAllocate() {
+        // gaps, the start and the end of an interval and its middle
+        int i = INTERVALS / 2;
+        MouseEvent[] moves = {
+                mouseEvent(MouseEvent.MOUSE_MOVED, start(i) - DISTANCE / 2),
+                mouseEvent(MouseEvent.MOUSE_MOVED, start(i)),
+                mouseEvent(MouseEvent.MOUSE_MOVED, start(i) + LENGTH / 2),
+                mouseEvent(MouseEvent.MOUSE_MOVED, start(i) + LENGTH),
+                mouseEvent(MouseEvent.MOUSE_MOVED, start(i) + LENGTH + DISTANCE / 4),
+        };
+
+        assertEquals(0, allocatedBytes(moves));
+    }
+
+    @Test
+    void unchangedMoveTicksDoNotAllocate() {
+        int x = start(INTERVALS / 2) + LENGTH / 2;
+        handler.handle(mouseEvent(MouseEvent.MOUSE_PRESSED, x));
+        handler.handle(mouseEvent(MouseEvent.MOUSE_DRAGGED, x + 5));
+
+        assertEquals(0, allocatedBytes(mouseEvent(MouseEvent.MOUSE_DRAGGED, x + 5)));
+    }
+
+    @Test
+    void moveTicksDoNotAllocate() {
+        int x = start(INTERVALS / 2) + LENGTH / 2;
+        handler.handle(mouseEvent(MouseEvent.MOUSE_PRESSED, x));
+
+        // every tick moves the interval (and the label of the blank intervals around it) by one unit
+        assertEquals(0, allocatedBytes(
+                mouseEvent(MouseEvent.MOUSE_DRAGGED, x + 5),
+                mouseEvent(MouseEvent.MOUSE_DRAGGED, x + 6)));
+    }
+
+    @Test
+    void resizeTicksDoNotAllocate() {
+        int x = start(INTERVALS / 2) + LENGTH;
+        handler.handle(mouseEvent(MouseEvent.MOUSE_PRESSED, x));
+
+        assertEquals(0, allocatedBytes(
+                mouseEvent(MouseEvent.MOUSE_DRAGGED, x + 5),
+                mouseEvent(MouseEvent.MOUSE_DRAGGED, x + 6)));
+    }
+
+    @Test
+    void unchangedResizeTicksDoNotAllocate() {
+        int x = start(INTERVALS / 2) + LENGTH;
+        handler.handle(mouseEvent(MouseEvent.MOUSE_PRESSED, x));
+        handler.handle(mouseEvent(MouseEvent.MOUSE_DRAGGED, x + 5));
+
+        assertEquals(0, allocatedBytes(mouseEvent(MouseEvent.MOUSE_DRAGGED, x + 5)));
+    }
+
+    // returns the fewest bytes the thread allocated during a round of handling the events after warming up; a single
+    // round may still see allocations by the JIT settling down
+    private long allocatedBytes(MouseEvent... events) {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        assumeTrue(bean instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) bean;
+        assumeTrue(threads.isThreadAllocatedMemorySupported());
+        threads.setThreadAllocatedMemoryEnabled(true);
+        long thread = Thread.currentThread().getId();
+
+        for (int round = 0; round < WARM_UP_ROUNDS; round++) handle(events);
+
+        long fewest = Long.MAX_VALUE;
+        for (int round = 0; round < MEASURED_ROUNDS; round++) {
+            long before = threads.getThreadAllocatedBytes(thread);
+            handle(events);
+            long after = threads.getThreadAllocatedBytes(thread);
+            fewest = Math.min(fewest, after - before);
+        }
+        return fewest;
+    }
+
+    private void handle(MouseEvent[] events) {
+        for (int i = 0; i < EVENTS_PER_ROUND; i++) handler.handle(events[i % events.length]);
+    }
+
+    private static int start(int i) {
+        return i * DISTANCE + OFFSET;
+    }
+
+    // event at the canvas position showing domain coordinate x
+    private MouseEvent mouseEvent(EventType<MouseEvent> type, int x) {
+        boolean pressed = type == MouseEvent.MOUSE_PRESSED || type == MouseEvent.MOUSE_DRAGGED;
+        int canvasX = layout.getCanvasX(x, true);
+        int canvasY = layout.getCanvasY(x, true) + layout.configuration().sectionHeight() / 2;
+        return new MouseEvent(type, canvasX, canvasY, canvasX, canvasY, MouseButton.PRIMARY, 1,
+                false, false, false, false, pressed, false, false, false, false, false, null);
+    }
+}
@@ -0,0 +1,170 @@
+package kweimann.mezzure.controller;
+
+import javafx.scene.Cursor;
+import kweimann.mezzure.model.Element1D;
+import kweimann.mezzure.model.Interval;
+import kweimann.mezzure.model.IntervalStore;
+import kweimann.mezzure.model.Point;
+import kweimann.mezzure.view.DrawingContext;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/* random bulk adds and removals, undos and redos must leave the handler in the state a reference history of
+ * versions predicts; the drawn intervals and gap labels must follow every change */
+class MezzureEventHandlerHistoryTest {
+    private static final int SEEDS = 40;
+    private static final int STEPS = 300;
+    private static final long DOMAIN_END = 100_000;
+
+    @Test
+    void bulkChangesUndoAndRedoMatchReference() {
+        for (int seed = 0; seed < SEEDS; seed++) {
+            Random random = new Random(seed);
+            RecordingDrawingContext dc = new RecordingDrawingContext();
+            MezzureEventHandler handler = new MezzureEventHandler(dc);
+
+            // versions.get(current) is what the handler must show
+            List<Map<Long, Long>> versions = new ArrayList<>();
+            versions.add(state(handler.getIntervals()));
+            int current = 0;
+
+            for (int step = 0; step < STEPS; step++) {
+                int operation = random.nextInt(10);
+                if (operation < 2) {
+                    if (handler.undo() != null) current--;
+                } else if (operation < 4) {
+                    if (handler.redo() != null) current++;
+                } else {
+                    Map<Long, Long> before = state(handler.getIntervals());
+                    if (operation < 6) handler.addIntervals(randomBatch(random));
+                    else if (operation < 7) handler.addIntervals(randomStore(random));
+                    else handler.removeIntervals(randomSubset(random, handler.getIntervals()));
+
+                    // only changes are committed
+                    Map<Long, Long> after = state(handler.getIntervals());
+                    if (!after.equals(before)) {
+                        versions.subList(current + 1, versions.size()).clear();
+                        versions.add(after);
+                        current++;
+                    }
+                }
+                assertEquals(versions.get(current), state(handler.getIntervals()), "seed " + seed + ", step " + step);
+            }
+
+            assertEquals(versions.get(current), state(handler.snapshot()), "snapshot, seed " + seed);
+            assertEquals(drawn(handler.getIntervals()), dc.drawn, "drawn intervals, seed " + seed);
+            assertEquals(gaps(handler.getIntervals()), dc.labels, "gap labels, seed " + seed);
+        }
+    }
+
+    // intervals that may overlap each other and the existing ones
+    private static List<Interval> randomBatch(Random random) {
+        List<Interval> batch = new ArrayList<>();
+        int n = random.nextInt(random.nextBoolean() ? 3 : 200);
+        for (int i = 0; i < n; i++) {
+            long start = random.nextInt((int) DOMAIN_END - 1000);
+            batch.add(interval(start, start + 1 + random.nextInt(50)));
+        }
+        return batch;
+    }
+
+    // sorted intervals that neither overlap nor touch each other
+    private static IntervalStore randomStore(Random random) {
+        IntervalStore store = new IntervalStore();
+        long start = random.nextInt(1000);
+        for (int i = random.nextInt(300); i > 0; i--) {
+            long end = start + 1 + random.nextInt(20);
+            if (end > DOMAIN_END) break;
+            store.insert(start, end);
+            start = end + 1 + random.nextInt(300);
+        }
+        return store;
+    }
+
+    private static List<Interval> randomSubset(Random random, Iterable<Interval> intervals) {
+        List<Interval> all = new ArrayList<>();
+        intervals.forEach(all::add);
+        Collections.shuffle(all, random);
+        return all.subList(0, Math.min(all.size(), random.nextInt(random.nextBoolean() ? 2 : all.size() + 1)));
+    }
+
+    private static Map<Long, Long> state(Iterable<Interval> intervals) {
+        Map<Long, Long> state = new TreeMap<>();
+        for (Interval interval : intervals) state.put(interval.start().center(), interval.end().center());
+        return state;
+    }
+
+    private static Set<Interval> drawn(Iterable<Interval> intervals) {
+        Set<Interval> drawn = new HashSet<>();
+        intervals.forEach(drawn::add);
+        return drawn;
+    }
+
+    // the blank intervals between consecutive intervals
+    private static Set<Interval> gaps(Iterable<Interval> intervals) {
+        Set<Interval> gaps = new HashSet<>();
+        Interval previous = null;
+        for (Interval interval : intervals) {
+            if (previous != null) gaps.add(new Interval(previous.end(), interval.start()));
+            previous = interval;
+        }
+        return gaps;
+    }
+
+    private static Interval interval(long start, long end) {
+        return new Interval(new Point(start), new Point(end));
+    }
+
+    // keeps the intervals currently drawn and labeled; one domain unit per pixel
+    private static final class RecordingDrawingContext implements DrawingContext {
+        final Set<Interval> drawn = new HashSet<>();
+        final Set<Interval> labels = new HashSet<>();
+
+        @Override
+        public void addText(Element1D element) {
+            labels.add((Interval) element);
+        }
+
+        @Override
+        public void clearText(Element1D element) {
+            labels.remove((Interval) element);
+        }
+
+        @Override
+        public void draw(Element1D element) {
+            if (element instanceof Interval) drawn.add((Interval) element);
+        }
+
+        @Override
+        public void clear(Element1D element) {
+            if (element instanceof Interval) drawn.remove((Interval) element);
+        }
+
+        @Override
+        public void setCursor(Cursor cursor) {
+        }
+
+        @Override
+        public long getX(int canvasX, int canvasY, boolean fitToSection) {
+            return canvasX;
+        }
+
+        @Override
+        public long getLength(int pixels) {
+            return pixels;
+        }
+
+        @Override
+        public Point getStart() {
+            return new Point(0);
+        }
+
+        @Override
+        public Point getEnd() {
+            return new Point(DOMAIN_END);
+        }
+    }
+}
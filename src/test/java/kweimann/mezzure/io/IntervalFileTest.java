@@ -0,0 +1,161 @@
+package kweimann.mezzure.io;
+
+import kweimann.mezzure.model.Interval;
+import kweimann.mezzure.model.IntervalStore;
+import kweimann.mezzure.model.Point;
+import kweimann.mezzure.util.VarInts;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/* random interval sets must read back as written; damaged files and intervals that would break the store must be
+ * rejected, and a failed write must keep the previous file */
+class IntervalFileTest {
+    private static final int SEEDS = 20;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void writtenIntervalsReadBack() throws IOException {
+        Path path = directory.resolve("intervals.bin");
+        for (int seed = 0; seed < SEEDS; seed++) {
+            Random random = new Random(seed);
+            List<Interval> intervals = randomIntervals(random, random.nextInt(random.nextBoolean() ? 10 : 50_000));
+            IntervalFile.write(path, intervals);
+
+            IntervalStore store = IntervalFile.read(path);
+            assertEquals(intervals.size(), store.size(), "seed " + seed);
+            for (int slot = 0; slot < store.size(); slot++)
+                assertEquals(intervals.get(slot), store.get(slot), "seed " + seed + ", slot " + slot);
+            assertEquals(1, files(), "seed " + seed);
+        }
+    }
+
+    @Test
+    void largeCoordinatesReadBack() throws IOException {
+        Path path = directory.resolve("intervals.bin");
+        List<Interval> intervals = Arrays.asList(interval(0, 1), interval(Long.MAX_VALUE - 1, Long.MAX_VALUE));
+        IntervalFile.write(path, intervals);
+        IntervalStore store = IntervalFile.read(path);
+        assertEquals(intervals.get(1), store.get(1));
+    }
+
+    @Test
+    void damagedFilesAreRejected() throws IOException {
+        Path path = directory.resolve("intervals.bin");
+        IntervalFile.write(path, randomIntervals(new Random(0), 100));
+        byte[] bytes = Files.readAllBytes(path);
+
+        // flipped payload bit
+        byte[] corrupted = bytes.clone();
+        corrupted[corrupted.length - 1] ^= 1;
+        assertRejected(corrupted);
+
+        assertRejected(Arrays.copyOf(bytes, bytes.length - 1));
+        assertRejected(Arrays.copyOf(bytes, bytes.length + 1));
+        assertRejected(Arrays.copyOf(bytes, 10));
+
+        byte[] magic = bytes.clone();
+        magic[0] ^= 1;
+        assertRejected(magic);
+    }
+
+    @Test
+    void invalidIntervalsAreRejected() throws IOException {
+        // (first start, length), then (gap, length) pairs
+        assertRejected(file(2, 10, 5, 0, 3));
+        assertRejected(file(2, 10, 5, 0));
+        assertRejected(file(2, 10, 0, 5, 3));
+        assertRejected(file(2, Long.MAX_VALUE, 1, 1, 1));
+        // count larger than the payload
+        assertRejected(file(1_000_000, 1, 1));
+        // valid
+        Files.write(directory.resolve("raw.bin"), file(2, 10, 5, 1, 3));
+        assertEquals(interval(16, 19), IntervalFile.read(directory.resolve("raw.bin")).get(1));
+    }
+
+    @Test
+    void intervalsOutsideTheDomainAreRejected() throws IOException {
+        Path path = directory.resolve("intervals.bin");
+        IntervalFile.write(path, Arrays.asList(interval(10, 20), interval(30, 40)));
+        assertEquals(2, IntervalFile.read(path, 10, 40).size());
+        assertThrows(IOException.class, () -> IntervalFile.read(path, 11, 40));
+        assertThrows(IOException.class, () -> IntervalFile.read(path, 10, 39));
+        assertThrows(IllegalArgumentException.class, () -> IntervalFile.read(path, 40, 10));
+    }
+
+    @Test
+    void failedWriteKeepsPreviousFile() throws IOException {
+        Path path = directory.resolve("intervals.bin");
+        List<Interval> intervals = Arrays.asList(interval(10, 20), interval(30, 40));
+        IntervalFile.write(path, intervals);
+        byte[] bytes = Files.readAllBytes(path);
+
+        List<Interval> unsorted = Arrays.asList(interval(30, 40), interval(10, 20));
+        assertThrows(IllegalArgumentException.class, () -> IntervalFile.write(path, unsorted));
+        assertArrayEquals(bytes, Files.readAllBytes(path));
+        assertEquals(1, files());
+
+        IntervalFile.write(path, intervals.subList(0, 1));
+        assertEquals(1, IntervalFile.read(path).size());
+        assertEquals(1, files());
+    }
+
+    // sorted intervals that neither overlap nor touch each other
+    private static List<Interval> randomIntervals(Random random, int n) {
+        List<Interval> intervals = new ArrayList<>();
+        long start = random.nextInt(1000);
+        for (int i = 0; i < n; i++) {
+            // mostly short gaps and lengths so that varints of every size occur
+            long end = start + 1 + (random.nextInt(8) == 0 ? random.nextInt(Integer.MAX_VALUE) : random.nextInt(100));
+            intervals.add(interval(start, end));
+            start = end + 1 + (random.nextInt(8) == 0 ? random.nextInt(Integer.MAX_VALUE) : random.nextInt(100));
+        }
+        return intervals;
+    }
+
+    // an interval file of `count` intervals with the given payload values and a valid checksum
+    private static byte[] file(int count, long... values) {
+        ByteBuffer payload = ByteBuffer.allocate(10 * values.length);
+        for (long value : values) VarInts.writeUnsignedLong(payload, value);
+        payload.flip();
+        CRC32 crc = new CRC32();
+        crc.update(payload.duplicate());
+
+        ByteBuffer file = ByteBuffer.allocate(21 + payload.remaining());
+        file.putInt(0x4D5A4956).put((byte) 1).putInt(count).putLong(payload.remaining()).putInt((int) crc.getValue())
+                .put(payload);
+        return file.array();
+    }
+
+    private void assertRejected(byte[] bytes) throws IOException {
+        Path path = directory.resolve("rejected.bin");
+        Files.write(path, bytes);
+        assertThrows(IOException.class, () -> IntervalFile.read(path));
+    }
+
+    private long files() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.count();
+        }
+    }
+
+    private static Interval interval(long start, long end) {
+        return new Interval(new Point(start), new Point(end));
+    }
+}
@@ -0,0 +1,146 @@
+package kweimann.mezzure.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/* random single and bulk updates checked against a sorted map; a rejected update must leave the store unchanged */
+class IntervalStoreTest {
+    private static final int SEEDS = 20;
+    private static final int STEPS = 500;
+    private static final int DOMAIN_END = 100_000;
+
+    @Test
+    void updatesMatchReference() {
+        for (int seed = 0; seed < SEEDS; seed++) {
+            Random random = new Random(seed);
+            IntervalStore store = new IntervalStore(random.nextInt(4));
+            TreeMap<Long, Long> reference = new TreeMap<>();
+
+            for (int step = 0; step < STEPS; step++) {
+                String message = "seed " + seed + ", step " + step;
+                int operation = reference.size() > 2000 ? 1 : random.nextInt(5);
+                if (operation == 0) {
+                    long start = random.nextInt(DOMAIN_END);
+                    long end = start + 1 + random.nextInt(100);
+                    if (reference.containsKey(start)) {
+                        assertThrows(IllegalArgumentException.class, () -> store.insert(start, end), message);
+                    } else {
+                        assertEquals(reference.headMap(start).size(), store.insert(start, end), message);
+                        reference.put(start, end);
+                    }
+                } else if (operation == 1 && store.size() > 0) {
+                    int slot = random.nextInt(store.size());
+                    reference.remove(store.start(slot));
+                    store.remove(slot);
+                } else if (operation == 2 && store.size() > 0) {
+                    int slot = random.nextInt(store.size());
+                    long start = random.nextInt(DOMAIN_END);
+                    long end = start + 1 + random.nextInt(100);
+                    Long existing = reference.get(start);
+                    if (existing != null && start != store.start(slot)) {
+                        assertThrows(IllegalArgumentException.class, () -> store.replace(slot, start, end), message);
+                    } else {
+                        reference.remove(store.start(slot));
+                        reference.put(start, end);
+                        assertEquals(reference.headMap(start).size(), store.replace(slot, start, end), message);
+                    }
+                } else if (operation == 3) {
+                    TreeMap<Long, Long> batch = new TreeMap<>();
+                    for (int i = random.nextInt(random.nextBoolean() ? 3 : 300); i > 0; i--) {
+                        long start = random.nextInt(DOMAIN_END);
+                        batch.put(start, start + 1 + random.nextInt(100));
+                    }
+                    long[] starts = new long[batch.size() + 1];
+                    long[] ends = new long[batch.size() + 1];
+                    int n = 0;
+                    for (Map.Entry<Long, Long> entry : batch.entrySet()) {
+                        starts[n] = entry.getKey();
+                        ends[n++] = entry.getValue();
+                    }
+                    boolean duplicate = false;
+                    for (long start : batch.keySet()) duplicate |= reference.containsKey(start);
+                    if (duplicate) {
+                        int size = n;
+                        assertThrows(IllegalArgumentException.class, () -> store.insertAll(starts, ends, size),
+                                message);
+                    } else {
+                        store.insertAll(starts, ends, n);
+                        reference.putAll(batch);
+                    }
+                } else if (store.size() > 0) {
+                    IntervalStore removed = new IntervalStore();
+                    for (Map.Entry<Long, Long> entry : reference.entrySet()) {
+                        // an interval with the same start but another end is kept
+                        if (random.nextInt(4) == 0) removed.insert(entry.getKey(), entry.getValue());
+                        else if (random.nextInt(8) == 0) removed.insert(entry.getKey(), entry.getValue() + 1);
+                    }
+                    int expected = 0;
+                    for (int slot = 0; slot < removed.size(); slot++)
+                        if (reference.remove(removed.start(slot), removed.end(slot))) expected++;
+                    assertEquals(expected, store.removeAll(removed), message);
+                }
+                assertSame(reference, store, random, message);
+            }
+        }
+    }
+
+    @Test
+    void rejectedInsertAllKeepsStore() {
+        IntervalStore store = new IntervalStore();
+        for (int i = 0; i < 10; i++) store.insert(i * 10, i * 10 + 5);
+
+        // the merge runs from the back so it reaches the duplicate only after moving the stored intervals behind it
+        long[] starts = {0, 45, 200};
+        long[] ends = {1, 46, 201};
+        assertThrows(IllegalArgumentException.class, () -> store.insertAll(starts, ends, 3));
+        assertUnchanged(store);
+
+        assertThrows(IllegalArgumentException.class, () -> store.insertAll(new long[]{7, 3}, new long[]{8, 4}, 2));
+        assertUnchanged(store);
+
+        assertThrows(IllegalArgumentException.class, () -> store.insertAll(new long[]{1, 3}, new long[]{2, 3}, 2));
+        assertUnchanged(store);
+    }
+
+    @Test
+    void insertAllOfNothingKeepsStore() {
+        IntervalStore store = new IntervalStore();
+        for (int i = 0; i < 10; i++) store.insert(i * 10, i * 10 + 5);
+        store.insertAll(new long[0], new long[0], 0);
+        assertUnchanged(store);
+    }
+
+    private static void assertUnchanged(IntervalStore store) {
+        assertEquals(10, store.size());
+        for (int i = 0; i < 10; i++) {
+            assertEquals(i * 10, store.start(i));
+            assertEquals(i * 10 + 5, store.end(i));
+        }
+    }
+
+    private static void assertSame(TreeMap<Long, Long> reference, IntervalStore store, Random random, String message) {
+        assertEquals(reference.size(), store.size(), message);
+        int slot = 0;
+        for (Map.Entry<Long, Long> entry : reference.entrySet()) {
+            assertEquals(entry.getKey().longValue(), store.start(slot), message);
+            assertEquals(entry.getValue().longValue(), store.end(slot++), message);
+        }
+
+        for (int i = 0; i < 20; i++) {
+            long x = random.nextInt(DOMAIN_END + 200) - 100;
+            assertEquals(reference.headMap(x, true).size() - 1, store.floor(x), message + ", floor " + x);
+            Long start = reference.floorKey(x);
+            int expected = start != null && reference.get(start) >= x
+                    ? reference.headMap(start).size()
+                    : reference.headMap(x, true).size();
+            assertEquals(expected, store.firstEndingAtOrAfter(x), message + ", first ending at or after " + x);
+            assertEquals(reference.containsKey(x) ? reference.headMap(x).size() : -1, store.indexOf(x), message);
+        }
+    }
+}
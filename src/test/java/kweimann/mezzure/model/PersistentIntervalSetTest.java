@@ -0,0 +1,139 @@
+package kweimann.mezzure.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/* random single and bulk updates checked against a sorted map; every version must stay as it was when it was
+ * created. batches are both small (inserted node by node) and large (merged and rebuilt) */
+class PersistentIntervalSetTest {
+    private static final int SEEDS = 10;
+    private static final int STEPS = 200;
+    private static final int PROBES = 100;
+    private static final int MAX_SIZE = 5000;
+    private static final int DOMAIN_END = 1_000_000;
+
+    @Test
+    void updatesMatchReferenceAndKeepVersions() {
+        for (int seed = 0; seed < SEEDS; seed++) {
+            Random random = new Random(seed);
+            List<PersistentIntervalSet> versions = new ArrayList<>();
+            List<TreeMap<Long, Long>> references = new ArrayList<>();
+            PersistentIntervalSet set = PersistentIntervalSet.empty();
+            TreeMap<Long, Long> reference = new TreeMap<>();
+
+            for (int step = 0; step < STEPS; step++) {
+                // large sets are only shrunk
+                int operation = reference.size() > MAX_SIZE ? 1 + 2 * random.nextInt(2) : random.nextInt(4);
+                if (operation == 0) {
+                    long start = random.nextInt(DOMAIN_END);
+                    if (!reference.containsKey(start)) {
+                        long end = start + 1 + random.nextInt(100);
+                        set = set.add(start, end);
+                        reference.put(start, end);
+                    }
+                } else if (operation == 1 && !reference.isEmpty()) {
+                    Map.Entry<Long, Long> removed = randomEntry(random, reference);
+                    set = set.remove(removed.getKey(), removed.getValue());
+                    reference.remove(removed.getKey());
+                } else if (operation == 2) {
+                    TreeMap<Long, Long> intervals = new TreeMap<>();
+                    for (int i = batchSize(random, reference.size()); i > 0; i--) {
+                        long start = random.nextInt(DOMAIN_END);
+                        if (!reference.containsKey(start)) intervals.put(start, start + 1 + random.nextInt(100));
+                    }
+                    IntervalStore added = store(intervals);
+                    set = set.addAll(added);
+                    reference.putAll(intervals);
+                } else {
+                    TreeMap<Long, Long> intervals = new TreeMap<>();
+                    for (int i = batchSize(random, reference.size()); i > 0 && !reference.isEmpty(); i--) {
+                        Map.Entry<Long, Long> entry = randomEntry(random, reference);
+                        intervals.put(entry.getKey(), entry.getValue());
+                    }
+                    // an interval that is not contained is ignored
+                    if (random.nextBoolean()) intervals.putIfAbsent((long) random.nextInt(DOMAIN_END), 2L * DOMAIN_END);
+                    IntervalStore removed = store(intervals);
+                    set = set.removeAll(removed);
+                    for (int slot = 0; slot < removed.size(); slot++)
+                        reference.remove(removed.start(slot), removed.end(slot));
+                }
+
+                assertSame(reference, set, random, "seed " + seed + ", step " + step);
+                versions.add(set);
+                references.add(new TreeMap<>(reference));
+            }
+
+            for (int i = 0; i < versions.size(); i++)
+                assertSame(references.get(i), versions.get(i), random, "version " + i + ", seed " + seed);
+        }
+    }
+
+    @Test
+    void removingMissingIntervalKeepsSet() {
+        PersistentIntervalSet set = PersistentIntervalSet.empty().add(10, 20).add(30, 40);
+        assertTrue(set.remove(10, 21) == set);
+        assertTrue(set.remove(50, 60) == set);
+    }
+
+    @Test
+    void addingDuplicateStartIsRejected() {
+        PersistentIntervalSet set = PersistentIntervalSet.empty();
+        IntervalStore batch = new IntervalStore();
+        for (int i = 0; i < 10; i++) batch.insert(i * 10, i * 10 + 5);
+        PersistentIntervalSet filled = set.addAll(batch);
+
+        IntervalStore duplicate = new IntervalStore();
+        duplicate.insert(20, 22);
+        duplicate.insert(100, 105);
+        // large enough to be merged instead of inserted node by node
+        for (int i = 0; i < 10; i++) duplicate.insert(200 + i * 10, 205 + i * 10);
+        assertThrows(IllegalArgumentException.class, () -> filled.addAll(duplicate));
+    }
+
+    // small batches are inserted node by node, large ones merged
+    private static int batchSize(Random random, int size) {
+        return random.nextBoolean() ? random.nextInt(size / 8 + 1) : size / 8 + 1 + random.nextInt(300);
+    }
+
+    // the intervals are appended in order
+    private static IntervalStore store(TreeMap<Long, Long> intervals) {
+        IntervalStore store = new IntervalStore();
+        intervals.forEach(store::insert);
+        return store;
+    }
+
+    private static Map.Entry<Long, Long> randomEntry(Random random, TreeMap<Long, Long> reference) {
+        Map.Entry<Long, Long> entry = reference.ceilingEntry((long) random.nextInt(DOMAIN_END));
+        return entry != null ? entry : reference.firstEntry();
+    }
+
+    private static void assertSame(TreeMap<Long, Long> reference, PersistentIntervalSet set, Random random,
+                                   String message) {
+        assertEquals(reference.size(), set.size(), message);
+
+        Iterator<Map.Entry<Long, Long>> expected = reference.entrySet().iterator();
+        for (Interval interval : set) {
+            Map.Entry<Long, Long> entry = expected.next();
+            assertEquals(entry.getKey().longValue(), interval.start().center(), message);
+            assertEquals(entry.getValue().longValue(), interval.end().center(), message);
+            assertTrue(set.contains(interval), message);
+        }
+
+        // floor probes before, at and after random stored starts
+        for (int i = 0; i < PROBES && !reference.isEmpty(); i++) {
+            Map.Entry<Long, Long> entry = randomEntry(random, reference);
+            for (long x = entry.getKey() - 1; x <= entry.getKey() + 1; x++) {
+                Long floor = reference.floorKey(x);
+                if (floor == null) assertNull(set.floor(x), message);
+                else assertEquals(floor.longValue(), set.floor(x).start().center(), message);
+            }
+            assertTrue(!set.contains(entry.getKey(), entry.getValue() + 1), message);
+        }
+    }
+}
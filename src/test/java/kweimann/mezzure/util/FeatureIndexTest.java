@@ -0,0 +1,84 @@
+package kweimann.mezzure.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/* snapping onto random features must find what a linear search over all features finds */
+class FeatureIndexTest {
+    private static final int SEEDS = 50;
+    private static final int PROBES = 2000;
+
+    @Test
+    void buildFindsExtremaAndZeroCrossings() {
+        double[] samples = {1, 3, 2, 2, 5, -1};
+        FeatureIndex index = FeatureIndex.build(samples.length, i -> samples[(int) i]);
+        assertArrayEquals(new long[]{1, 2, 4, 5}, positions(index));
+    }
+
+    @Test
+    void buildOfEmptySeriesHasNoFeatures() {
+        assertEquals(0, FeatureIndex.build(0, i -> 0).size());
+    }
+
+    @Test
+    void snapMatchesLinearSearch() {
+        for (int seed = 0; seed < SEEDS; seed++) {
+            Random random = new Random(seed);
+            int size = 1 + random.nextInt(5000);
+            double[] samples = new double[size];
+            for (int i = 0; i < size; i++) samples[i] = random.nextInt(21) - 10;
+            FeatureIndex index = FeatureIndex.build(size, i -> samples[(int) i]);
+            long[] positions = positions(index);
+
+            for (int i = 0; i < PROBES; i++) {
+                long x = random.nextInt(size + 200) - 100;
+                long radius = random.nextInt(random.nextBoolean() ? 4 : 100);
+                assertEquals(nearest(positions, x, radius), index.snap(x, radius),
+                        "seed " + seed + ", x " + x + ", radius " + radius);
+            }
+        }
+    }
+
+    @Test
+    void snapWithoutFeaturesKeepsPosition() {
+        FeatureIndex index = FeatureIndex.of(new long[0]);
+        assertEquals(42, index.snap(42, 1000));
+    }
+
+    @Test
+    void snapPrefersLowerFeatureOnTie() {
+        FeatureIndex index = FeatureIndex.of(new long[]{10, 20});
+        assertEquals(10, index.snap(15, 5));
+        assertEquals(15, index.snap(15, 4));
+    }
+
+    @Test
+    void ofRejectsUnsortedPositions() {
+        assertThrows(IllegalArgumentException.class, () -> FeatureIndex.of(new long[]{1, 3, 2}));
+        assertThrows(IllegalArgumentException.class, () -> FeatureIndex.of(new long[]{1, 1}));
+    }
+
+    // the nearest feature within the radius (the lower one if two are equally near) or x
+    private static long nearest(long[] positions, long x, long radius) {
+        long best = x;
+        long distance = radius + 1;
+        for (long position : positions) {
+            if (Math.abs(position - x) < distance) {
+                best = position;
+                distance = Math.abs(position - x);
+            }
+        }
+        return best;
+    }
+
+    private static long[] positions(FeatureIndex index) {
+        long[] positions = new long[index.size()];
+        for (int i = 0; i < positions.length; i++) positions[i] = index.position(i);
+        return positions;
+    }
+}
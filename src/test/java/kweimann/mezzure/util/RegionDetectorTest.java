@@ -0,0 +1,109 @@
+package kweimann.mezzure.util;
+
+import kweimann.mezzure.model.IntervalStore;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/* the parallel scan over chunks must find the regions a single sequential pass finds; series span several chunks so
+ * that runs crossing chunk borders are stitched */
+class RegionDetectorTest {
+    private static final int SEEDS = 12;
+    private static final int MAX_SIZE = 200_000;
+
+    @Test
+    void detectMatchesSequentialReference() {
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            for (int seed = 0; seed < SEEDS; seed++) {
+                Random random = new Random(seed);
+                int size = random.nextInt(MAX_SIZE);
+                double[] samples = series(random, size);
+
+                RegionDetector.Rule[] rules = {
+                        RegionDetector.Rule.above(random.nextInt(5) - 2),
+                        RegionDetector.Rule.below(random.nextInt(5) - 2),
+                        RegionDetector.Rule.plateaus(random.nextInt(2)),
+                        RegionDetector.Rule.lobes()
+                };
+                for (int r = 0; r < rules.length; r++) {
+                    long minLength = 2 + random.nextInt(random.nextBoolean() ? 3 : 200);
+                    double minPeak = random.nextInt(6);
+                    RegionDetector detector = RegionDetector.builder(rules[r])
+                            .minLength(minLength).minPeak(minPeak).build();
+
+                    String message = "seed " + seed + ", rule " + r;
+                    IntervalStore expected = detectSequentially(rules[r], minLength, minPeak, samples);
+                    IntervalStore actual = detector.detect(size, i -> samples[(int) i], pool);
+                    assertEquals(expected.size(), actual.size(), message);
+                    for (int slot = 0; slot < expected.size(); slot++) {
+                        assertEquals(expected.start(slot), actual.start(slot), message + ", slot " + slot);
+                        assertEquals(expected.end(slot), actual.end(slot), message + ", slot " + slot);
+                    }
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void emptySeriesHasNoRegions() {
+        RegionDetector detector = RegionDetector.builder(RegionDetector.Rule.lobes()).build();
+        assertEquals(0, detector.detect(0, i -> 0).size());
+    }
+
+    @Test
+    void builderRejectsBadFilters() {
+        RegionDetector.Builder builder = RegionDetector.builder(RegionDetector.Rule.lobes());
+        assertThrows(IllegalArgumentException.class, () -> builder.minLength(1).build());
+        assertThrows(IllegalArgumentException.class, () -> builder.minLength(2).minPeak(-1).build());
+        assertThrows(IllegalArgumentException.class, () -> RegionDetector.Rule.plateaus(Double.NaN));
+    }
+
+    // a random walk of small integers so that every rule finds long runs as well as short ones
+    private static double[] series(Random random, int size) {
+        double[] samples = new double[size];
+        int value = 0;
+        for (int i = 0; i < size; i++) {
+            int step = random.nextInt(8);
+            if (step == 0) value = Math.max(-10, value - 1);
+            else if (step == 1) value = Math.min(10, value + 1);
+            else if (step == 2) value = random.nextInt(21) - 10;
+            samples[i] = value;
+        }
+        return samples;
+    }
+
+    // maximal runs of the same class other than 0 in a single pass
+    private static IntervalStore detectSequentially(RegionDetector.Rule rule, long minLength, double minPeak,
+                                                    double[] samples) {
+        IntervalStore regions = new IntervalStore();
+        double previous = Double.NaN;
+        int start = -1;
+        int type = 0;
+        double peak = 0;
+        for (int i = 0; i <= samples.length; i++) {
+            int current = i < samples.length ? rule.classify(previous, samples[i]) : 0;
+            if (current != type || i == samples.length) {
+                if (type != 0) {
+                    int first = rule.includesPrevious() ? start - 1 : start;
+                    int last = i - 1;
+                    if (last > first && last - first + 1 >= minLength && peak >= minPeak) regions.insert(first, last);
+                }
+                type = current;
+                start = i;
+                peak = 0;
+            }
+            if (i < samples.length) {
+                if (type != 0) peak = Math.max(peak, Math.abs(samples[i]));
+                previous = samples[i];
+            }
+        }
+        return regions;
+    }
+}
@@ -0,0 +1,95 @@
+package kweimann.mezzure.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/* random values of every magnitude (and the extremes) must read back as written through streams and buffers */
+class VarIntsTest {
+    private static final int VALUES = 10_000;
+
+    @Test
+    void streamValuesReadBack() throws IOException {
+        Random random = new Random(0);
+        int[] ints = new int[VALUES];
+        long[] longs = new long[VALUES];
+        for (int i = 0; i < VALUES; i++) {
+            ints[i] = i < 4 ? extremeInt(i) : random.nextInt() >> random.nextInt(32);
+            longs[i] = i < 4 ? extremeLong(i) : random.nextLong() >> random.nextInt(64);
+        }
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        for (int i = 0; i < VALUES; i++) {
+            VarInts.writeSigned(out, ints[i]);
+            VarInts.writeUnsigned(out, ints[i]);
+            VarInts.writeSignedLong(out, longs[i]);
+            VarInts.writeUnsignedLong(out, longs[i]);
+        }
+
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+        for (int i = 0; i < VALUES; i++) {
+            assertEquals(ints[i], VarInts.readSigned(in), "value " + i);
+            assertEquals(ints[i], VarInts.readUnsigned(in), "value " + i);
+            assertEquals(longs[i], VarInts.readSignedLong(in), "value " + i);
+            assertEquals(longs[i], VarInts.readUnsignedLong(in), "value " + i);
+        }
+        assertEquals(-1, in.read());
+    }
+
+    @Test
+    void bufferValuesReadBack() throws IOException {
+        Random random = new Random(0);
+        long[] longs = new long[VALUES];
+        for (int i = 0; i < VALUES; i++) longs[i] = i < 4 ? extremeLong(i) : random.nextLong() >>> random.nextInt(64);
+
+        ByteBuffer buffer = ByteBuffer.allocate(10 * VALUES);
+        for (long n : longs) VarInts.writeUnsignedLong(buffer, n);
+        buffer.flip();
+        for (int i = 0; i < VALUES; i++) assertEquals(longs[i], VarInts.readUnsignedLong(buffer), "value " + i);
+        assertEquals(0, buffer.remaining());
+    }
+
+    @Test
+    void smallValuesTakeSingleByte() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        VarInts.writeUnsigned(out, 127);
+        VarInts.writeSigned(out, -64);
+        VarInts.writeUnsignedLong(out, 127);
+        VarInts.writeSignedLong(out, 63);
+        assertEquals(4, bytes.size());
+    }
+
+    @Test
+    void malformedAndTruncatedValuesAreRejected() {
+        byte[] endless = new byte[11];
+        Arrays.fill(endless, (byte) 0x80);
+        assertThrows(IOException.class,
+                () -> VarInts.readUnsigned(new DataInputStream(new ByteArrayInputStream(endless))));
+        assertThrows(IOException.class, () -> VarInts.readUnsignedLong(ByteBuffer.wrap(endless)));
+        assertThrows(BufferUnderflowException.class, () -> VarInts.readUnsignedLong(ByteBuffer.wrap(endless, 0, 3)));
+        assertThrows(EOFException.class,
+                () -> VarInts.readUnsignedLong(new DataInputStream(new ByteArrayInputStream(endless, 0, 3))));
+    }
+
+    private static int extremeInt(int i) {
+        return new int[]{0, -1, Integer.MIN_VALUE, Integer.MAX_VALUE}[i];
+    }
+
+    private static long extremeLong(int i) {
+        return new long[]{0, -1, Long.MIN_VALUE, Long.MAX_VALUE}[i];
+    }
+}